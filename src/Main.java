@@ -1,12 +1,19 @@
+import RayTracing.Acceleration.EBuildMode;
+import RayTracing.AnimationRenderer;
 import RayTracing.RayTracer;
+import RayTracing.RenderSettings;
+import RayTracing.Sampling.ESamplerType;
 import Reader_Writer.Exceptions.GIFWrtierException;
 import Reader_Writer.Exceptions.PNGConverterException;
 import Reader_Writer.Exceptions.XMLReaderException;
+import Reader_Writer.GIFStream;
 import Reader_Writer.GIFWriter;
 import Reader_Writer.PNGConverter;
+import Reader_Writer.SceneCache;
 import Reader_Writer.XMLReader;
-import SceneData.DataTypes.MyColor;
+import SceneData.DataTypes.FrameBuffer;
 import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
 import SceneData.Scene;
 import SceneData.Surface.Sphere;
 
@@ -18,18 +25,31 @@ public class Main {
     final static String SCENE_PATH = "scenes/";
     final static String OUTPUT_PATH = "outputPictures/";
     final static Scanner inputScanner = new Scanner(System.in);
+    /** minimum time between two preview images of a progressive render in milliseconds */
+    final static long PROGRESS_INTERVAL = 1000;
+    /** how far the spheres move down and up from their position while the shutter is open (motion blur) */
+    final static float MOTION_BLUR_DISTANCE = 0.18f;
+    /** change of the radius of the spheres in every frame of the animation (shrinking, then growing faster and faster) */
+    final static float[] ANIMATION_RADIUS_CHANGES = {-0.5f, -0.4f, -0.3f, -0.2f, -0.1f, 0.1f, 0.3f, 0.6f, 1.0f, 1.5f};
+    /** the number of animation frames that are rendered or waiting to be encoded at once */
+    final static int ANIMATION_FRAMES_IN_FLIGHT = 2;
     private static boolean superSampling = false;
     private static boolean animation = false;
     private static boolean motionBlur = false;
+    private static boolean preview = false;
+    private static boolean progressive = false;
+    private static boolean adaptive = false;
     private static XMLReader xmlReader;
+    private static SceneCache sceneCache;
     private static PNGConverter pngConverter;
     private static RayTracer rayTracer;
     private static Scene scene;
-    private static MyColor[][] image;
+    private static FrameBuffer image;
     private static String filePath = "";
 
     public static void main(String[] args) {
         xmlReader = new XMLReader();
+        sceneCache = new SceneCache(xmlReader);
         pngConverter = new PNGConverter();
         rayTracer = new RayTracer();
         scene = new Scene();
@@ -51,13 +71,20 @@ public class Main {
                     case "supersampling" -> superSampling = true;
                     case "animation" -> animation = true;
                     case "motionblur" -> motionBlur = true;
+                    case "preview" -> preview = true;
+                    case "progressive" -> progressive = true;
+                    case "adaptive" -> adaptive = true;
                 }
             }
             else{
                 superSampling = false;
                 animation = false;
                 motionBlur = false;
+                preview = false;
+                progressive = false;
+                adaptive = false;
             }
+            xmlReader.setMeshBuildMode(preview ? EBuildMode.LBVH : EBuildMode.SAH);
             
             switch (userInput[0]){
                 case "all" -> createAllScenes();
@@ -83,6 +110,7 @@ public class Main {
             }
             userInput = userInteraction();
         }
+        rayTracer.close();
     }
 
     /**
@@ -92,11 +120,28 @@ public class Main {
      */
     private static void developeScene() throws XMLReaderException, PNGConverterException{
         //read the scene xml file and create a scene object
-        scene = xmlReader.readXML(filePath, SCENE_PATH);
+        scene = sceneCache.readXML(filePath, SCENE_PATH);
         System.out.println("\nScene '" + filePath + "' read sucessfully!");
 
         //ray trace the scene
-        image = rayTracer.rayTrace(scene, superSampling);
+        if(progressive) {
+            //super sample the scene pass by pass and overwrite the preview png with every intermediate image
+            RenderSettings settings = new RenderSettings(true);
+            settings.setProgressInterval(PROGRESS_INTERVAL);
+            String previewPath = OUTPUT_PATH + scene.getSceneName() + "_preview.png";
+            image = rayTracer.rayTrace(scene, settings, (intermediateImage, pass, passCount) -> {
+                System.out.println("Pass " + pass + "/" + passCount + " done");
+                pngConverter.createPNG(intermediateImage, previewPath);
+            });
+        } else if(adaptive) {
+            //super sample only where needed and save how many rays every pixel got
+            RenderSettings settings = new RenderSettings(true);
+            settings.setAdaptiveSampling(true);
+            image = rayTracer.rayTrace(scene, settings);
+            pngConverter.createHeatmapPNG(image, RayTracer.SAMPLE_COUNT_CHANNEL, settings.getSamplesPerPixel(), OUTPUT_PATH + scene.getSceneName() + "_samples.png");
+        } else {
+            image = rayTracer.rayTrace(scene, superSampling);
+        }
         //create a png image
         pngConverter.createPNG(image, OUTPUT_PATH + scene.getOutputFileName());
     }
@@ -124,68 +169,31 @@ public class Main {
     }
 
     /**
-     * Creates an animation of spheres moving them
+     * Creates a motion blur of the scene: the spheres move up while the shutter is open and every ray of the super sampling
+     * sees them at its own time, so the blur comes from one render instead of averaging several frames
      */
     private static void createMotionBlur() {
-        ArrayList<MyColor[][]> images = new ArrayList<>();
-
         scene.clear();
         try {
             //read the scene xml file and create a scene object
-            scene = xmlReader.readXML(filePath, SCENE_PATH);
+            scene = sceneCache.readXML(filePath, SCENE_PATH);
 
             System.out.println("\nCreating motion blur...");
 
-            //move the spheresdown
-            for(int i = 3; i >=1; i--){
-                float finalI = i * 0.03f;
-
-                scene.getSurfaces().forEach(surface -> {
-                    if(surface instanceof Sphere){
-                        Sphere sphere = (Sphere) surface;
-
-                        MyPoint position = sphere.getOrigin();
-                        position.setY(position.getY() - finalI);
-                        sphere.setOrigin(position);
-                    }
-                });
-                //ray trace the scene and add the image to the list
-                images.add(rayTracer.rayTrace(scene, false));
-            }
-
-            //reset the spheres to their original position
-            scene = xmlReader.readXML(filePath, SCENE_PATH);
-
-            //move the spheres up
-            for(int i = 1; i <= 3; i++){
-                float finalI = i * 0.03f;
-
-                scene.getSurfaces().forEach(surface -> {
-                    if(surface instanceof Sphere){
-                        Sphere sphere = (Sphere) surface;
-
-                        MyPoint position = sphere.getOrigin();
-                        position.setY(position.getY() + finalI);
-                        sphere.setOrigin(position);
-                    }
-                });
-                //ray trace the scene and add the image to the list
-                images.add(rayTracer.rayTrace(scene, false));
-            }
-
-            //average the pixel color of the images and create a png image
-            MyColor[][] finalImage = new MyColor[scene.getCamera().getHeight()][scene.getCamera().getWidth()];
-
-            for(int y = 0; y < scene.getCamera().getHeight(); y++){
-                for(int x = 0; x < scene.getCamera().getWidth(); x++){
-                    MyColor pixelColor = new MyColor();
-                    for(MyColor[][] image : images){
-                        pixelColor.add(image[y][x]);
-                    }
-                    pixelColor = pixelColor.scale(1.0f/images.size());
-                    finalImage[y][x] = pixelColor;
+            //move the spheres from below their position to above it (spheres with an own motion in the scene keep it)
+            scene.getSurfaces().forEach(surface -> {
+                if(surface instanceof Sphere sphere && !sphere.isMoving()){
+                    MyPoint position = sphere.getOrigin();
+                    position.setY(position.getY() - MOTION_BLUR_DISTANCE);
+                    sphere.setOrigin(position);
+                    sphere.setMotion(new MyVector(0, 2 * MOTION_BLUR_DISTANCE, 0));
                 }
-            }
+            });
+
+            //ray trace the scene with random positions and times of the rays, so the blur is smooth
+            RenderSettings settings = new RenderSettings(true);
+            settings.setSamplerType(ESamplerType.STRATIFIED);
+            FrameBuffer finalImage = rayTracer.rayTrace(scene, settings);
 
             //create a png image of the final image
             pngConverter.createPNG(finalImage, OUTPUT_PATH + scene.getSceneName() + "_motionblur.png");
@@ -202,48 +210,18 @@ public class Main {
     private static void createAnimation() {
         GIFWriter gifWriter = new GIFWriter();
 
-        ArrayList<MyColor[][]> images = new ArrayList<>();
-
         scene.clear();
         try {
-            //read the scene xml file and create a scene object
-            scene = xmlReader.readXML(filePath, SCENE_PATH);
+            //read the scene xml file once, the frames are created from it
+            scene = sceneCache.readXML(filePath, SCENE_PATH);
 
             System.out.println("\nCreating animation...");
 
-            //shrink the spheres
-            for(int i = 5; i >=1; i--){
-                float finalI = i==5 ? i * -0.1f : 0.1f;
-
-                scene.getSurfaces().forEach(surface -> {
-                    if(surface instanceof Sphere){
-                        Sphere sphere = (Sphere) surface;
-                        sphere.setRadius(sphere.getRadius() + finalI);
-                    }
-                });
-                //ray trace the scene and add the image to the list
-                images.add(rayTracer.rayTrace(scene, false));
-            }
-
-            //reset the scene
-            scene = xmlReader.readXML(filePath, SCENE_PATH);
-
-            //grow the spheres
-            for(int i = 1; i <= 5; i++){
-                float finalI = i * 0.1f;
-
-                scene.getSurfaces().forEach(surface -> {
-                    if(surface instanceof Sphere){
-                        Sphere sphere = (Sphere) surface;
-                        sphere.setRadius(sphere.getRadius() + finalI);
-                    }
-                });
-                //ray trace the scene and add the image to the list
-                images.add(rayTracer.rayTrace(scene, false));
+            //render the frames side by side and encode every finished frame right away, only a few frames are kept at once
+            try (GIFStream gif = gifWriter.startGIF(OUTPUT_PATH + scene.getSceneName() + "_animation.gif", scene.getCamera().getWidth(), scene.getCamera().getHeight())) {
+                AnimationRenderer animationRenderer = new AnimationRenderer(rayTracer, ANIMATION_FRAMES_IN_FLIGHT);
+                animationRenderer.render(ANIMATION_RADIUS_CHANGES.length, Main::createAnimationFrame, new RenderSettings(false), gif::addFrame);
             }
-
-            //create a gif image with the images list
-            gifWriter.createGIF(images, OUTPUT_PATH + scene.getSceneName()+"_animation.gif", scene.getCamera().getWidth(), scene.getCamera().getHeight());
         }
         catch (XMLReaderException | GIFWrtierException e) {
             System.out.println(e.getMessage());
@@ -257,6 +235,9 @@ public class Main {
                 "\n- '<sceneName/all> -animation' -> adds animation (only spheres) to the selected scene/all scenes" +
                 "\n- '<sceneName/all> -motionblur' -> adds motion blur (only spheres) to the selected scene/all scenes" +
                 "\n- '<sceneName/all> -supersampling' -> creates a scene using super sampling (shooting 25 rays through one pixel instead of just one)" +
+                "\n- '<sceneName/all> -preview' -> builds the mesh hierarchies with the fast LBVH build instead of SAH (faster loading of big meshes)" +
+                "\n- '<sceneName/all> -adaptive' -> creates a scene using adaptive super sampling (more rays only where the colors of a pixel differ, up to 25), a heatmap png (<sceneName>_samples.png) shows the rays per pixel" +
+                "\n- '<sceneName/all> -progressive' -> creates a super sampled scene pass by pass, a preview png (<sceneName>_preview.png) shows the image so far" +
                 "\n- 'help' -> prints the commands again"+
                 "\n- 'exit' -> exit the program"
         );
@@ -272,6 +253,22 @@ public class Main {
         return inputScanner.nextLine().split(" -");
     }
 
+    /**
+     * Creates the scene of one frame of the animation from a snapshot of the scene read once: the spheres get the changed radius,
+     * all other surfaces (e.g. meshes) are shared by the frames, so they are neither read nor built again for every frame
+     * @param frame the number of the frame
+     * @return the scene of the frame
+     */
+    private static Scene createAnimationFrame(int frame) {
+        Scene frameScene = scene.copy();
+        frameScene.getSurfaces().forEach(surface -> {
+            if(surface instanceof Sphere sphere){
+                sphere.setRadius(sphere.getRadius() + ANIMATION_RADIUS_CHANGES[frame]);
+            }
+        });
+        return frameScene;
+    }
+
     /**
      * Returns the file path of the scene file
      * @param userInput the scene name
@@ -0,0 +1,47 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+import SceneData.Surface.Surface;
+
+import java.util.List;
+
+/**
+ * Acceleration structure over the surfaces of a scene, that finds the closest surface a ray hits
+ * or checks if any surface blocks a ray (shadow rays)
+ */
+public interface Accelerator {
+    /**
+     * Returns the surfaces of the structure
+     * @return the surfaces of the structure
+     */
+    List<Surface> getSurfaces();
+
+    /**
+     * Finds the closest surface the ray intersects with (after tMin of the ray), only the distance tests of the surfaces are run
+     * @param ray the ray to check
+     * @param hit the closest hit so far, updated with the closest surface found
+     * @return true if a surface closer than the previous hit was found, false otherwise
+     */
+    boolean intersect(Ray ray, Hit hit);
+
+    /**
+     * Finds the closest surface of every ray of the packet, one ray after the other by default.<br>
+     * Structures that can traverse packets let the rays share the node tests.
+     * @param packet the rays to check
+     * @param hits the closest hit of every ray so far (same index as in the packet), updated with the closest surface found
+     */
+    default void intersect(RayPacket packet, Hit[] hits) {
+        for(int i = 0; i < packet.getSize(); i++) {
+            intersect(packet.getRay(i), hits[i]);
+        }
+    }
+
+    /**
+     * Checks if any surface blocks the ray between tMin and tMax of the ray, stops at the first blocker found (not necessarily the closest)
+     * @param ray the ray to check
+     * @return true if a surface is hit between tMin and tMax, false otherwise
+     */
+    boolean occluded(Ray ray);
+}
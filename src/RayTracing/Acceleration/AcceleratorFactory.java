@@ -0,0 +1,98 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+import SceneData.Surface.Surface;
+
+import java.util.List;
+
+/**
+ * Creates the acceleration structure of a scene, and chooses one from the scene statistics if the scene does not ask for a specific one
+ */
+public class AcceleratorFactory {
+    /** scenes with this many surfaces or less are faster without any structure */
+    private static final int MAX_LINEAR_SURFACES = 4;
+    /** the grid only pays off with enough surfaces to fill its cells */
+    private static final int MIN_GRID_SURFACES = 64;
+    /** maximum coefficient of variation (standard deviation / mean) of the surface sizes for the grid */
+    private static final float MAX_GRID_SIZE_VARIATION = 0.5f;
+
+    /**
+     * Creates the acceleration structure over the given surfaces
+     * @param surfaces the surfaces of the scene
+     * @param type the structure to create, AUTO chooses one with {@link #chooseType(List)}
+     * @return the created acceleration structure
+     */
+    public static Accelerator create(List<Surface> surfaces, EAcceleratorType type) {
+        return create(surfaces, type, null);
+    }
+
+    /**
+     * Creates the acceleration structure over the surfaces of the next frame of a scene, from the structure of the previous frame where possible.<br>
+     * A hierarchy of the previous frame is refitted to the moved surfaces (see {@link BVHAccelerator#refit(List)}) instead of being built again,
+     * the other structures have nothing to keep and are simply created.
+     * @param surfaces the surfaces of the scene
+     * @param type the structure to create, AUTO chooses one with {@link #chooseType(List)}
+     * @param previous the structure of the previous frame of the scene, or null if there is none
+     * @return the created acceleration structure
+     */
+    public static Accelerator create(List<Surface> surfaces, EAcceleratorType type, Accelerator previous) {
+        if(type == EAcceleratorType.AUTO) {
+            type = chooseType(surfaces);
+        }
+
+        return switch (type) {
+            case LINEAR -> new LinearAccelerator(surfaces);
+            case GRID -> new UniformGrid(surfaces);
+            default -> previous instanceof BVHAccelerator bvhAccelerator ? bvhAccelerator.refit(surfaces) : new BVHAccelerator(surfaces);
+        };
+    }
+
+    /**
+     * Chooses the acceleration structure from the number of surfaces and how similar their sizes are:<br>
+     * - very few surfaces: no structure (linear)<br>
+     * - many surfaces of similar size: uniform grid, every surface only ends up in a few cells<br>
+     * - otherwise: bounding volume hierarchy, which adapts to any size distribution
+     * @param surfaces the surfaces of the scene
+     * @return the chosen acceleration structure type
+     */
+    public static EAcceleratorType chooseType(List<Surface> surfaces) {
+        int count = surfaces.size();
+        if(count <= MAX_LINEAR_SURFACES) {
+            return EAcceleratorType.LINEAR;
+        }
+        if(count < MIN_GRID_SURFACES) {
+            return EAcceleratorType.BVH;
+        }
+
+        //size of a surface = length of the diagonal of its box
+        double sum = 0.0;
+        double squaredSum = 0.0;
+        int boxCount = 0;
+        for(Surface surface : surfaces) {
+            BoundingBox box = surface.getBoundingBox();
+            if(box.isEmpty()) {
+                continue;
+            }
+            double size = 0.0;
+            for(int axis = 0; axis < 3; axis++) {
+                double extent = box.getMax(axis) - box.getMin(axis);
+                size += extent * extent;
+            }
+            size = Math.sqrt(size);
+            sum += size;
+            squaredSum += size * size;
+            boxCount++;
+        }
+        //nothing to measure: the hierarchy handles any scene
+        if(boxCount == 0) {
+            return EAcceleratorType.BVH;
+        }
+
+        //empty boxes are not counted, they would make the surfaces look smaller and more different than they are
+        double mean = sum / boxCount;
+        double variance = Math.max(0.0, squaredSum / boxCount - mean * mean);
+        double variation = mean > 0 ? Math.sqrt(variance) / mean : 0.0;
+
+        return variation <= MAX_GRID_SIZE_VARIATION ? EAcceleratorType.GRID : EAcceleratorType.BVH;
+    }
+}
@@ -0,0 +1,666 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over a list of primitives (e.g. the triangles of a {@link SceneData.Surface.Mesh Mesh}).<br>
+ * Every node stores the box around all its primitives, so a ray only has to test the primitives of the leaves whose boxes it hits.<br><br>
+ * The nodes are 4 wide (one step tests the boxes of up to 4 children) and are stored in flat arrays instead of node objects:<br>
+ * - nodeBounds: 24 floats per node, the boxes of the 4 children as minX[4], minY[4], minZ[4], maxX[4], maxY[4], maxZ[4]<br>
+ * - nodeChildren: 4 ints per node, the index of the child node, or the first primitive if the child is a leaf, or EMPTY<br>
+ * - nodeCounts: 4 ints per node, the number of primitives if the child is a leaf, 0 otherwise<br><br>
+ * The primitives of a leaf are a continuous range in leaf order, which is handed to the {@link PrimitiveIntersector} and the
+ * {@link PrimitiveOccluder} as a whole. The indices given to them are positions in that order, so the primitives should be reordered with {@link #getPrimitiveOrder()} after building.
+ */
+public class BVH {
+    private static final int WIDTH = 4;
+    private static final int NODE_FLOATS = WIDTH * 6;
+    private static final int EMPTY = -1;
+    /** cost of visiting a node in {@link #getCost()}, relative to the cost of intersecting one primitive */
+    private static final float NODE_COST = 1.0f;
+
+    /** traversal stack of every render thread, reused for all rays so the traversal does not allocate */
+    private static final ThreadLocal<TraversalStack> TRAVERSAL_STACKS = ThreadLocal.withInitial(TraversalStack::new);
+
+    private float[] nodeBounds;
+    private int[] nodeChildren;
+    private int[] nodeCounts;
+    private int nodeCount;
+    private int leafCount;
+    private int maxDepth;
+    private final int stackSize;
+    private final int[] primitiveOrder;
+    private final BoundingBox bounds;
+    private final BVHStatistics statistics;
+    private final float cost;
+
+    /**
+     * Builds the hierarchy over the given primitives with the surface area heuristic
+     * @param bounds the bounding box of every primitive, the position in the list is the index of the primitive
+     */
+    public BVH(List<BoundingBox> bounds) {
+        this(bounds, EBuildMode.SAH);
+    }
+
+    /**
+     * Builds the hierarchy over the given primitives on all cores
+     * @param bounds the bounding box of every primitive, the position in the list is the index of the primitive
+     * @param buildMode how the primitives are split into nodes (SAH for the best render times, LBVH for the fastest build)
+     */
+    public BVH(List<BoundingBox> bounds, EBuildMode buildMode) {
+        this(bounds, buildMode, 1);
+    }
+
+    /**
+     * Builds the hierarchy over the given primitives on all cores, with leaves of at least the given size where possible
+     * @param bounds the bounding box of every primitive, the position in the list is the index of the primitive
+     * @param buildMode how the primitives are split into nodes (SAH for the best render times, LBVH for the fastest build)
+     * @param leafSize the number of primitives the intersector tests at once, nodes with this many primitives or less are not split
+     */
+    public BVH(List<BoundingBox> bounds, EBuildMode buildMode, int leafSize) {
+        long startTime = System.nanoTime();
+
+        BVHBuilder builder = new BVHBuilder(bounds, buildMode, leafSize);
+        BVHNode root = builder.build();
+        primitiveOrder = builder.getPrimitiveIndices();
+
+        //collapse the binary tree of the builder into the flat 4 wide nodes
+        nodeBounds = new float[NODE_FLOATS * 16];
+        nodeChildren = new int[WIDTH * 16];
+        nodeCounts = new int[WIDTH * 16];
+        if(root != null) {
+            collapse(root, 1);
+        }
+        nodeBounds = Arrays.copyOf(nodeBounds, nodeCount * NODE_FLOATS);
+        nodeChildren = Arrays.copyOf(nodeChildren, nodeCount * WIDTH);
+        nodeCounts = Arrays.copyOf(nodeCounts, nodeCount * WIDTH);
+
+        //every level pushes at most WIDTH entries and pops one
+        stackSize = maxDepth * (WIDTH - 1) + 1;
+        this.bounds = root != null ? root.bounds : new BoundingBox();
+
+        statistics = new BVHStatistics(buildMode, bounds.size(), nodeCount, leafCount, maxDepth, System.nanoTime() - startTime);
+        cost = computeCost();
+    }
+
+    /**
+     * Creates a hierarchy with the nodes of the source hierarchy, but other boxes (see {@link #refit(List, boolean[])})
+     * @param source the hierarchy whose nodes and primitive order are shared
+     * @param nodeBounds the boxes of the nodes
+     */
+    private BVH(BVH source, float[] nodeBounds) {
+        this.nodeBounds = nodeBounds;
+        this.nodeChildren = source.nodeChildren;
+        this.nodeCounts = source.nodeCounts;
+        this.nodeCount = source.nodeCount;
+        this.leafCount = source.leafCount;
+        this.maxDepth = source.maxDepth;
+        this.stackSize = source.stackSize;
+        this.primitiveOrder = source.primitiveOrder;
+        this.statistics = source.statistics;
+
+        BoundingBox rootBounds = new BoundingBox();
+        if(nodeCount > 0) {
+            for(int slot = 0; slot < WIDTH; slot++) {
+                if(nodeChildren[slot] != EMPTY) {
+                    rootBounds.expand(new BoundingBox(
+                            new MyPoint(nodeBounds[slot], nodeBounds[WIDTH + slot], nodeBounds[2 * WIDTH + slot]),
+                            new MyPoint(nodeBounds[3 * WIDTH + slot], nodeBounds[4 * WIDTH + slot], nodeBounds[5 * WIDTH + slot])));
+                }
+            }
+        }
+        this.bounds = rootBounds;
+        this.cost = computeCost();
+    }
+
+    /**
+     * Returns the box around all primitives of the hierarchy
+     * @return the bounding box of the root node (empty if there are no primitives)
+     */
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the build time and the node/leaf statistics of the hierarchy
+     * @return the statistics of the build
+     */
+    public BVHStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the leaf order of the primitives: position i in leaf order is the primitive with the index getPrimitiveOrder()[i]
+     * @return the original primitive index of every position in leaf order
+     */
+    public int[] getPrimitiveOrder() {
+        return primitiveOrder;
+    }
+
+    /**
+     * Reorders the given primitives into leaf order, so they can be accessed with the indices the hierarchy uses
+     * @param primitives the primitives in the order the hierarchy was built from
+     * @return a new list with the primitives in leaf order
+     */
+    public <T> List<T> reorder(List<T> primitives) {
+        List<T> ordered = new ArrayList<>(primitives.size());
+        for(int index : primitiveOrder) {
+            ordered.add(primitives.get(index));
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the surface area heuristic cost of the hierarchy: the expected number of node visits and primitive tests of a ray that hits the root box.<br>
+     * A refitted hierarchy gets more expensive, the more the boxes of its nodes grow and overlap.
+     * @return the cost of the hierarchy (0 if there are no primitives)
+     */
+    public float getCost() {
+        return cost;
+    }
+
+    /**
+     * Creates a hierarchy with the same nodes and primitive order, whose boxes fit the new boxes of the primitives (e.g. of the next frame of an animation).<br>
+     * Only the boxes of the leaves with a moved primitive and of the nodes above them are recalculated, the tree itself is not changed.
+     * This hierarchy is not changed, so it can still be used while the refitted one is created.
+     * @param bounds the new bounding box of every primitive, in the order the hierarchy was built from
+     * @param moved true for every primitive (same index as the bounds) whose box has changed
+     * @return the refitted hierarchy
+     */
+    public BVH refit(List<BoundingBox> bounds, boolean[] moved) {
+        float[] refittedBounds = nodeBounds.clone();
+        boolean[] nodeMoved = new boolean[nodeCount];
+        float[] box = new float[6];
+
+        //children are always stored after their parent, so going backwards every child is refitted before its parent
+        for(int node = nodeCount - 1; node >= 0; node--) {
+            for(int slot = 0; slot < WIDTH; slot++) {
+                int child = nodeChildren[node * WIDTH + slot];
+                if(child == EMPTY) {
+                    continue;
+                }
+
+                int count = nodeCounts[node * WIDTH + slot];
+                if(count > 0) {
+                    boolean leafMoved = false;
+                    for(int i = child; i < child + count && !leafMoved; i++) {
+                        leafMoved = moved[primitiveOrder[i]];
+                    }
+                    if(!leafMoved) {
+                        continue;
+                    }
+
+                    resetBox(box);
+                    for(int i = child; i < child + count; i++) {
+                        BoundingBox primitiveBox = bounds.get(primitiveOrder[i]);
+                        for(int axis = 0; axis < 3; axis++) {
+                            box[axis] = Math.min(box[axis], primitiveBox.getMin(axis));
+                            box[3 + axis] = Math.max(box[3 + axis], primitiveBox.getMax(axis));
+                        }
+                    }
+                } else {
+                    if(!nodeMoved[child]) {
+                        continue;
+                    }
+
+                    resetBox(box);
+                    int childBase = child * NODE_FLOATS;
+                    for(int childSlot = 0; childSlot < WIDTH; childSlot++) {
+                        for(int axis = 0; axis < 3; axis++) {
+                            box[axis] = Math.min(box[axis], refittedBounds[childBase + axis * WIDTH + childSlot]);
+                            box[3 + axis] = Math.max(box[3 + axis], refittedBounds[childBase + (3 + axis) * WIDTH + childSlot]);
+                        }
+                    }
+                }
+
+                int base = node * NODE_FLOATS;
+                for(int axis = 0; axis < 6; axis++) {
+                    refittedBounds[base + axis * WIDTH + slot] = box[axis];
+                }
+                nodeMoved[node] = true;
+            }
+        }
+
+        return new BVH(this, refittedBounds);
+    }
+
+    private static void resetBox(float[] box) {
+        for(int axis = 0; axis < 3; axis++) {
+            box[axis] = Float.POSITIVE_INFINITY;
+            box[3 + axis] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Calculates the surface area heuristic cost of the nodes: every node and leaf is weighted with the probability,
+     * that a ray through the root box also hits its box (the ratio of the surface areas)
+     * @return the expected cost of a ray that hits the root box, 0 if there are no primitives
+     */
+    private float computeCost() {
+        float rootArea = bounds.getSurfaceArea();
+        if(nodeCount == 0 || rootArea <= 0) {
+            return 0.0f;
+        }
+
+        float cost = NODE_COST * rootArea;
+        for(int node = 0; node < nodeCount; node++) {
+            int base = node * NODE_FLOATS;
+            for(int slot = 0; slot < WIDTH; slot++) {
+                if(nodeChildren[node * WIDTH + slot] == EMPTY) {
+                    continue;
+                }
+
+                float dx = nodeBounds[base + 3 * WIDTH + slot] - nodeBounds[base + slot];
+                float dy = nodeBounds[base + 4 * WIDTH + slot] - nodeBounds[base + WIDTH + slot];
+                float dz = nodeBounds[base + 5 * WIDTH + slot] - nodeBounds[base + 2 * WIDTH + slot];
+                float area = dx < 0 || dy < 0 || dz < 0 ? 0.0f : 2.0f * (dx * dy + dy * dz + dz * dx);
+                int count = nodeCounts[node * WIDTH + slot];
+                cost += area * (count > 0 ? count : NODE_COST);
+            }
+        }
+        return cost / rootArea;
+    }
+
+    /**
+     * Creates the wide node of the given binary node by pulling up the grandchildren with the biggest boxes until there are 4 children
+     * @param binaryNode the node of the binary tree
+     * @param depth the depth of the wide node
+     * @return the index of the created wide node
+     */
+    private int collapse(BVHNode binaryNode, int depth) {
+        int index = allocateNode();
+        maxDepth = Math.max(maxDepth, depth);
+
+        List<BVHNode> children = new ArrayList<>(WIDTH);
+        if(binaryNode.isLeaf()) {
+            children.add(binaryNode);
+        } else {
+            children.add(binaryNode.left);
+            children.add(binaryNode.right);
+        }
+
+        while(children.size() < WIDTH) {
+            int largest = -1;
+            float largestArea = -1.0f;
+            for(int i = 0; i < children.size(); i++) {
+                BVHNode child = children.get(i);
+                float area = child.bounds.getSurfaceArea();
+                if(!child.isLeaf() && area > largestArea) {
+                    largest = i;
+                    largestArea = area;
+                }
+            }
+            if(largest == -1) {
+                break;
+            }
+            BVHNode expanded = children.remove(largest);
+            children.add(expanded.left);
+            children.add(expanded.right);
+        }
+
+        for(int slot = 0; slot < WIDTH; slot++) {
+            if(slot >= children.size()) {
+                setSlot(index, slot, null, EMPTY, 0);
+                continue;
+            }
+
+            BVHNode child = children.get(slot);
+            if(child.isLeaf()) {
+                leafCount++;
+                setSlot(index, slot, child.bounds, child.start, child.count);
+            } else {
+                int childIndex = collapse(child, depth + 1);
+                setSlot(index, slot, child.bounds, childIndex, 0);
+            }
+        }
+        return index;
+    }
+
+    private int allocateNode() {
+        if((nodeCount + 1) * WIDTH > nodeChildren.length) {
+            nodeBounds = Arrays.copyOf(nodeBounds, nodeBounds.length * 2);
+            nodeChildren = Arrays.copyOf(nodeChildren, nodeChildren.length * 2);
+            nodeCounts = Arrays.copyOf(nodeCounts, nodeCounts.length * 2);
+        }
+        return nodeCount++;
+    }
+
+    private void setSlot(int node, int slot, BoundingBox box, int child, int count) {
+        int base = node * NODE_FLOATS;
+        for(int axis = 0; axis < 3; axis++) {
+            nodeBounds[base + axis * WIDTH + slot] = box != null ? box.getMin(axis) : Float.POSITIVE_INFINITY;
+            nodeBounds[base + (3 + axis) * WIDTH + slot] = box != null ? box.getMax(axis) : Float.NEGATIVE_INFINITY;
+        }
+        nodeChildren[node * WIDTH + slot] = child;
+        nodeCounts[node * WIDTH + slot] = count;
+    }
+
+    /**
+     * Finds the closest primitive the ray intersects with, boxes further away than the hit found so far are skipped
+     * @param ray the ray to check (only hits after tMin of the ray are accepted)
+     * @param hit the closest hit so far, updated by the intersector when a closer primitive is found
+     * @param intersector the intersection test of the primitives, called with the range of every reached leaf in leaf order
+     * @return true if a primitive closer than the previous hit was found, false otherwise
+     */
+    public boolean intersect(Ray ray, Hit hit, PrimitiveIntersector intersector) {
+        if(nodeCount == 0) {
+            return false;
+        }
+
+        TraversalStack traversalStack = TRAVERSAL_STACKS.get();
+        int stackBase = traversalStack.reserve(stackSize);
+        try {
+            return findClosest(ray, hit, intersector, traversalStack, stackBase, 0);
+        } finally {
+            traversalStack.release(stackBase);
+        }
+    }
+
+    /**
+     * @param rootEntry the node or leaf slot the traversal starts at (0 for the whole hierarchy)
+     */
+    private boolean findClosest(Ray ray, Hit hit, PrimitiveIntersector intersector, TraversalStack traversalStack, int stackBase, int rootEntry) {
+        boolean found = false;
+
+        //stack entries >= 0 are nodes, entries < 0 are leaf slots (-(node * WIDTH + slot) - 1)
+        int[] stack = traversalStack.entries;
+        int stackPointer = stackBase;
+        stack[stackPointer++] = rootEntry;
+
+        //only used while the children of one node are sorted, so nested traversals (e.g. of a mesh) can share them
+        int[] hitEntries = traversalStack.hitEntries;
+        float[] hitDistances = traversalStack.hitDistances;
+
+        while(stackPointer > stackBase) {
+            int entry = stack[--stackPointer];
+
+            if(entry < 0) {
+                int slot = -entry - 1;
+                int start = nodeChildren[slot];
+                if(intersector.intersect(start, start + nodeCounts[slot], ray, hit)) {
+                    found = true;
+                }
+                continue;
+            }
+
+            //test the boxes of all children and sort the hit ones by distance (nearest first)
+            int base = entry * NODE_FLOATS;
+            int hitCount = 0;
+            for(int slot = 0; slot < WIDTH; slot++) {
+                int child = nodeChildren[entry * WIDTH + slot];
+                if(child == EMPTY) {
+                    continue;
+                }
+
+                float tNear = intersectChild(ray, base, slot, hit.getT());
+                if(tNear < 0) {
+                    continue;
+                }
+
+                int stackEntry = nodeCounts[entry * WIDTH + slot] > 0 ? -(entry * WIDTH + slot) - 1 : child;
+                int position = hitCount++;
+                while(position > 0 && hitDistances[position - 1] > tNear) {
+                    hitDistances[position] = hitDistances[position - 1];
+                    hitEntries[position] = hitEntries[position - 1];
+                    position--;
+                }
+                hitDistances[position] = tNear;
+                hitEntries[position] = stackEntry;
+            }
+
+            //push the farthest first, so the nearest child is visited next
+            for(int i = hitCount - 1; i >= 0; i--) {
+                stack[stackPointer++] = hitEntries[i];
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the closest primitive of every ray of the packet, the rays traverse the hierarchy together (see {@link RayPacket}).<br>
+     * Every node is visited with the first ray that hits its box, the rays before it skip the node. If the packet is not coherent,
+     * or only the last ray of the packet is left for a node, the rays continue one by one like in {@link #intersect(Ray, Hit, PrimitiveIntersector)}.
+     * @param packet the rays to check (only hits after tMin of every ray are accepted)
+     * @param firstRay the first ray of the packet that is checked, the rays before are skipped
+     * @param hits the closest hit of every ray so far (same index as in the packet), updated by the intersector
+     * @param intersector the intersection test of the primitives, called with the range of every reached leaf and the first ray that reached it
+     * @return true if a closer primitive was found for any of the rays, false otherwise
+     */
+    public boolean intersect(RayPacket packet, int firstRay, Hit[] hits, PrimitiveIntersector intersector) {
+        if(nodeCount == 0) {
+            return false;
+        }
+
+        //the rays point in different directions, the children would be visited in the wrong order for most of them
+        if(!packet.isCoherent()) {
+            boolean found = false;
+            for(int i = firstRay; i < packet.getSize(); i++) {
+                if(intersect(packet.getRay(i), hits[i], intersector)) {
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        TraversalStack traversalStack = TRAVERSAL_STACKS.get();
+        //every entry is stored together with the first ray that visits it
+        int stackBase = traversalStack.reserve(stackSize * 2);
+        try {
+            return findClosest(packet, firstRay, hits, intersector, traversalStack, stackBase);
+        } finally {
+            traversalStack.release(stackBase);
+        }
+    }
+
+    private boolean findClosest(RayPacket packet, int firstRay, Hit[] hits, PrimitiveIntersector intersector, TraversalStack traversalStack, int stackBase) {
+        boolean found = false;
+        int lastRay = packet.getSize() - 1;
+
+        //two values per entry: the node or leaf slot (like in the single ray traversal) and the first ray that hits it
+        int[] stack = traversalStack.entries;
+        int stackPointer = stackBase;
+        stack[stackPointer++] = 0;
+        stack[stackPointer++] = firstRay;
+
+        int[] hitEntries = traversalStack.hitEntries;
+        int[] hitRays = traversalStack.hitRays;
+        float[] hitDistances = traversalStack.hitDistances;
+
+        while(stackPointer > stackBase) {
+            int first = stack[--stackPointer];
+            int entry = stack[--stackPointer];
+
+            //the packet has diverged, the last ray continues on its own
+            if(first == lastRay) {
+                int singleBase = traversalStack.reserve(stackSize);
+                try {
+                    if(findClosest(packet.getRay(first), hits[first], intersector, traversalStack, singleBase, entry)) {
+                        found = true;
+                    }
+                } finally {
+                    traversalStack.release(singleBase);
+                }
+                continue;
+            }
+
+            if(entry < 0) {
+                int slot = -entry - 1;
+                int start = nodeChildren[slot];
+                if(intersector.intersect(start, start + nodeCounts[slot], packet, first, hits)) {
+                    found = true;
+                }
+                continue;
+            }
+
+            //find the first ray that hits the box of every child and sort the hit children by its distance (nearest first)
+            int base = entry * NODE_FLOATS;
+            int hitCount = 0;
+            for(int slot = 0; slot < WIDTH; slot++) {
+                int child = nodeChildren[entry * WIDTH + slot];
+                if(child == EMPTY) {
+                    continue;
+                }
+
+                int childFirst = first;
+                float tNear = intersectChild(packet.getRay(childFirst), base, slot, hits[childFirst].getT());
+                while(tNear < 0 && childFirst < lastRay) {
+                    childFirst++;
+                    tNear = intersectChild(packet.getRay(childFirst), base, slot, hits[childFirst].getT());
+                }
+                if(tNear < 0) {
+                    continue;
+                }
+
+                int stackEntry = nodeCounts[entry * WIDTH + slot] > 0 ? -(entry * WIDTH + slot) - 1 : child;
+                int position = hitCount++;
+                while(position > 0 && hitDistances[position - 1] > tNear) {
+                    hitDistances[position] = hitDistances[position - 1];
+                    hitEntries[position] = hitEntries[position - 1];
+                    hitRays[position] = hitRays[position - 1];
+                    position--;
+                }
+                hitDistances[position] = tNear;
+                hitEntries[position] = stackEntry;
+                hitRays[position] = childFirst;
+            }
+
+            //push the farthest first, so the nearest child is visited next
+            for(int i = hitCount - 1; i >= 0; i--) {
+                stack[stackPointer++] = hitEntries[i];
+                stack[stackPointer++] = hitRays[i];
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Checks if the ray hits any primitive between tMin and tMax of the ray (used for shadow rays).<br>
+     * Unlike {@link #intersect(Ray, Hit, PrimitiveIntersector)} the children are not sorted and the traversal stops at the first hit.
+     * @param ray the ray to check
+     * @param occluder the any-hit test of the primitives, called with the range of every reached leaf in leaf order
+     * @return true if any primitive is hit between tMin and tMax, false otherwise
+     */
+    public boolean occluded(Ray ray, PrimitiveOccluder occluder) {
+        if(nodeCount == 0) {
+            return false;
+        }
+
+        TraversalStack traversalStack = TRAVERSAL_STACKS.get();
+        int stackBase = traversalStack.reserve(stackSize);
+        try {
+            return findAny(ray, occluder, traversalStack.entries, stackBase);
+        } finally {
+            traversalStack.release(stackBase);
+        }
+    }
+
+    private boolean findAny(Ray ray, PrimitiveOccluder occluder, int[] stack, int stackBase) {
+        float tMax = ray.getTMax();
+        int stackPointer = stackBase;
+        stack[stackPointer++] = 0;
+
+        while(stackPointer > stackBase) {
+            int entry = stack[--stackPointer];
+
+            if(entry < 0) {
+                int slot = -entry - 1;
+                int start = nodeChildren[slot];
+                if(occluder.occluded(start, start + nodeCounts[slot], ray)) {
+                    return true;
+                }
+                continue;
+            }
+
+            int base = entry * NODE_FLOATS;
+            for(int slot = 0; slot < WIDTH; slot++) {
+                int child = nodeChildren[entry * WIDTH + slot];
+                if(child == EMPTY || intersectChild(ray, base, slot, tMax) < 0) {
+                    continue;
+                }
+                stack[stackPointer++] = nodeCounts[entry * WIDTH + slot] > 0 ? -(entry * WIDTH + slot) - 1 : child;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Traversal stack of one thread, shared by all hierarchies.<br>
+     * Every traversal reserves its entries on top of the entries of the traversal it is nested in
+     * (e.g. a mesh reached by the top level hierarchy) and releases them when it is finished.
+     * If a nested traversal has to grow the array, the outer traversal keeps working on the old array,
+     * which still contains its entries, and only the following traversals use the new one.
+     */
+    private static final class TraversalStack {
+        private int[] entries = new int[256];
+        private int top;
+        private final int[] hitEntries = new int[WIDTH];
+        private final int[] hitRays = new int[WIDTH];
+        private final float[] hitDistances = new float[WIDTH];
+
+        /**
+         * Reserves the given number of entries on top of the stack
+         * @param size the number of entries the traversal needs at most
+         * @return the position of the first reserved entry
+         */
+        private int reserve(int size) {
+            int base = top;
+            if(base + size > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(entries.length * 2, base + size));
+            }
+            top = base + size;
+            return base;
+        }
+
+        private void release(int base) {
+            top = base;
+        }
+    }
+
+    /**
+     * Slab test of the ray against the box in the given slot of a node.<br>
+     * The near and far planes of the box are picked with the signs of the ray direction, so no min/max is needed.
+     * @param ray the ray to check
+     * @param base the position of the node in the bounds array
+     * @param slot the slot of the child (0 to 3)
+     * @param tMax the maximum distance along the ray
+     * @return the distance where the ray enters the box, or -1 if the box is missed between 0 and tMax
+     */
+    private float intersectChild(Ray ray, int base, int slot, float tMax) {
+        MyPoint origin = ray.getOrigin();
+        //offsets of the near and far planes in the node (min planes at 0 to 2, max planes at 3 to 5)
+        int nearX = (ray.getSignX() * 3) * WIDTH;
+        int nearY = (1 + ray.getSignY() * 3) * WIDTH;
+        int nearZ = (2 + ray.getSignZ() * 3) * WIDTH;
+        int farX = (3 - ray.getSignX() * 3) * WIDTH;
+        int farY = (4 - ray.getSignY() * 3) * WIDTH;
+        int farZ = (5 - ray.getSignZ() * 3) * WIDTH;
+
+        float tNear = 0.0f;
+        float tFar = tMax;
+        float t0 = (nodeBounds[base + nearX + slot] - origin.getX()) * ray.getInverseDirectionX();
+        float t1 = (nodeBounds[base + farX + slot] - origin.getX()) * ray.getInverseDirectionX();
+        //NaN (origin on the slab and direction parallel to it) is ignored by the comparisons
+        if(t0 > tNear) tNear = t0;
+        if(t1 < tFar) tFar = t1;
+        t0 = (nodeBounds[base + nearY + slot] - origin.getY()) * ray.getInverseDirectionY();
+        t1 = (nodeBounds[base + farY + slot] - origin.getY()) * ray.getInverseDirectionY();
+        if(t0 > tNear) tNear = t0;
+        if(t1 < tFar) tFar = t1;
+        t0 = (nodeBounds[base + nearZ + slot] - origin.getZ()) * ray.getInverseDirectionZ();
+        t1 = (nodeBounds[base + farZ + slot] - origin.getZ()) * ray.getInverseDirectionZ();
+        if(t0 > tNear) tNear = t0;
+        if(t1 < tFar) tFar = t1;
+        return tNear > tFar ? -1.0f : tNear;
+    }
+}
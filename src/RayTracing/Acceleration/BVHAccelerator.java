@@ -0,0 +1,150 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+import SceneData.Surface.SphereArrays;
+import SceneData.Surface.Surface;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top level bounding volume hierarchy over the bounds of all surfaces (meshes keep their own hierarchy over their triangles).<br>
+ * The surfaces are stored in the leaf order of the hierarchy, so its indices are the positions in the list.
+ * The leaves are filled up to the number of spheres {@link SphereArrays} tests at once, so leaves of spheres are tested with the Vector API if it is available.
+ */
+public class BVHAccelerator implements Accelerator {
+    /** the hierarchy is built again once refitting has made it this many times more expensive than after the last build */
+    private static final float MAX_REFIT_COST_GROWTH = 1.5f;
+
+    private final List<Surface> surfaces;
+    private final List<BoundingBox> surfaceBounds;
+    private final BVH bvh;
+    private final float buildCost;
+    private final SphereArrays sphereArrays;
+    private final PrimitiveIntersector surfaceIntersector;
+    private final PrimitiveOccluder surfaceOccluder;
+
+    public BVHAccelerator(List<Surface> surfaces) {
+        this(surfaces, getBounds(surfaces));
+    }
+
+    private BVHAccelerator(List<Surface> surfaces, List<BoundingBox> surfaceBounds) {
+        this(surfaces, surfaceBounds, new BVH(surfaceBounds, EBuildMode.SAH, SphereArrays.getWidth()), -1.0f);
+    }
+
+    /**
+     * @param surfaces the surfaces in the order the hierarchy was built from
+     * @param surfaceBounds the bounding box of every surface (same order)
+     * @param bvh the hierarchy over the boxes
+     * @param buildCost the cost of the hierarchy after its last build, negative if it was just built
+     */
+    private BVHAccelerator(List<Surface> surfaces, List<BoundingBox> surfaceBounds, BVH bvh, float buildCost) {
+        this.bvh = bvh;
+        this.surfaceBounds = surfaceBounds;
+        this.buildCost = buildCost < 0 ? bvh.getCost() : buildCost;
+        this.surfaces = bvh.reorder(surfaces);
+        this.sphereArrays = new SphereArrays(this.surfaces);
+        this.surfaceIntersector = new PrimitiveIntersector() {
+            @Override
+            public boolean intersect(int index, Ray ray, Hit hit) {
+                return BVHAccelerator.this.surfaces.get(index).intersect(ray, hit);
+            }
+
+            //the spheres of a leaf are tested together
+            @Override
+            public boolean intersect(int start, int end, Ray ray, Hit hit) {
+                return sphereArrays.intersect(start, end, ray, hit);
+            }
+
+            //the packet stays together inside the surfaces of the leaf (e.g. the hierarchy of a mesh), or ray by ray in a leaf of spheres
+            @Override
+            public boolean intersect(int start, int end, RayPacket packet, int firstRay, Hit[] hits) {
+                return sphereArrays.intersect(start, end, packet, firstRay, hits);
+            }
+        };
+        this.surfaceOccluder = new PrimitiveOccluder() {
+            @Override
+            public boolean occluded(int index, Ray ray) {
+                return BVHAccelerator.this.surfaces.get(index).occluded(ray);
+            }
+
+            @Override
+            public boolean occluded(int start, int end, Ray ray) {
+                return sphereArrays.occluded(start, end, ray);
+            }
+        };
+    }
+
+    private static List<BoundingBox> getBounds(List<Surface> surfaces) {
+        List<BoundingBox> surfaceBounds = new ArrayList<>(surfaces.size());
+        for(Surface surface : surfaces) {
+            surfaceBounds.add(surface.getBoundingBox());
+        }
+        return surfaceBounds;
+    }
+
+    /**
+     * Creates the structure for the surfaces of the next frame (e.g. of an animation) from this one, instead of building it again:<br>
+     * - nothing moved: the hierarchy is shared, only the surfaces are taken from the new frame<br>
+     * - some surfaces moved: only the boxes of their leaves and the nodes above them are refitted<br>
+     * - the refitted hierarchy is more than MAX_REFIT_COST_GROWTH times as expensive as after the last build, or the number of surfaces changed: it is built again<br><br>
+     * The surfaces themselves are not touched, so the hierarchy of a static mesh is never built again.
+     * This structure does not change and can still be used by frames that are rendered at the same time.
+     * @param surfaces the surfaces of the next frame, in the order of the scene
+     * @return the structure over the new surfaces
+     */
+    public BVHAccelerator refit(List<Surface> surfaces) {
+        List<BoundingBox> newBounds = getBounds(surfaces);
+        if(newBounds.size() != surfaceBounds.size()) {
+            return new BVHAccelerator(surfaces, newBounds);
+        }
+
+        boolean[] moved = new boolean[newBounds.size()];
+        boolean anyMoved = false;
+        for(int i = 0; i < moved.length; i++) {
+            moved[i] = !isSameBox(surfaceBounds.get(i), newBounds.get(i));
+            anyMoved |= moved[i];
+        }
+        if(!anyMoved) {
+            return new BVHAccelerator(surfaces, newBounds, bvh, buildCost);
+        }
+
+        BVH refitted = bvh.refit(newBounds, moved);
+        if(refitted.getCost() > buildCost * MAX_REFIT_COST_GROWTH) {
+            return new BVHAccelerator(surfaces, newBounds);
+        }
+        return new BVHAccelerator(surfaces, newBounds, refitted, buildCost);
+    }
+
+    private static boolean isSameBox(BoundingBox box, BoundingBox other) {
+        for(int axis = 0; axis < 3; axis++) {
+            if(box.getMin(axis) != other.getMin(axis) || box.getMax(axis) != other.getMax(axis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Surface> getSurfaces() {
+        return surfaces;
+    }
+
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return bvh.intersect(ray, hit, surfaceIntersector);
+    }
+
+    @Override
+    public void intersect(RayPacket packet, Hit[] hits) {
+        bvh.intersect(packet, 0, hits, surfaceIntersector);
+    }
+
+    @Override
+    public boolean occluded(Ray ray) {
+        return bvh.occluded(ray, surfaceOccluder);
+    }
+}
@@ -0,0 +1,473 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.MyPoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the nodes of a {@link BVH} on all cores, by splitting the node ranges into fork/join subtasks.<br>
+ * Depending on the {@link EBuildMode} the primitives are split with the binned surface area heuristic (SAH) or along a morton curve (LBVH).
+ */
+class BVHBuilder {
+    /** nodes with this many primitives or less always become a leaf */
+    private static final int MIN_LEAF_SIZE = 2;
+    /** nodes with this many primitives or less become a leaf if the SAH says splitting does not pay off */
+    private static final int MAX_LEAF_SIZE = 8;
+    /** leaf size of the linear BVH, which does not use the SAH to decide */
+    private static final int LBVH_LEAF_SIZE = 4;
+    private static final int BIN_COUNT = 16;
+    /** cost of visiting a node, relative to the cost of intersecting one primitive */
+    private static final float TRAVERSAL_COST = 1.0f;
+    /** ranges with more primitives than this are built as own subtasks */
+    private static final int PARALLEL_THRESHOLD = 4096;
+    /** ranges with more primitives than this are binned in parallel chunks */
+    private static final int PARALLEL_BINNING_THRESHOLD = 65536;
+
+    private final EBuildMode buildMode;
+    private final int minLeafSize;
+    private final int maxLeafSize;
+    private final int lbvhLeafSize;
+    private final int primitiveCount;
+    private final float[] primitiveBoxes;
+    private final float[] centroids;
+    private final int[] primitiveIndices;
+    private int[] mortonCodes;
+
+    /**
+     * @param bounds the bounding box of every primitive, the position in the list is the index of the primitive
+     * @param buildMode how the primitives are split into nodes
+     * @param leafSize the number of primitives the leaves should be filled up to (e.g. the primitives that are tested at once), 1 for no minimum
+     */
+    BVHBuilder(List<BoundingBox> bounds, EBuildMode buildMode, int leafSize) {
+        this.buildMode = buildMode;
+        this.minLeafSize = Math.max(MIN_LEAF_SIZE, leafSize);
+        this.maxLeafSize = Math.max(MAX_LEAF_SIZE, leafSize);
+        this.lbvhLeafSize = Math.max(LBVH_LEAF_SIZE, leafSize);
+        this.primitiveCount = bounds.size();
+        this.primitiveBoxes = new float[primitiveCount * 6];
+        this.centroids = new float[primitiveCount * 3];
+        this.primitiveIndices = new int[primitiveCount];
+
+        IntStream.range(0, primitiveCount).parallel().forEach(i -> {
+            BoundingBox box = bounds.get(i);
+            for(int axis = 0; axis < 3; axis++) {
+                primitiveBoxes[i * 6 + axis] = box.getMin(axis);
+                primitiveBoxes[i * 6 + 3 + axis] = box.getMax(axis);
+                centroids[i * 3 + axis] = box.getCenter(axis);
+            }
+            primitiveIndices[i] = i;
+        });
+    }
+
+    /**
+     * Builds the hierarchy, the primitive indices are reordered so that every leaf points to a continuous range
+     * @return the root node, or null if there are no primitives
+     */
+    BVHNode build() {
+        if(primitiveCount == 0) {
+            return null;
+        }
+
+        return switch (buildMode) {
+            case SAH -> ForkJoinPool.commonPool().invoke(new SAHTask(0, primitiveCount));
+            case LBVH -> {
+                sortByMortonCode();
+                yield ForkJoinPool.commonPool().invoke(new LBVHTask(0, primitiveCount));
+            }
+        };
+    }
+
+    /**
+     * Returns the order of the primitives after building, leaves point to ranges of this array
+     * @return the primitive indices in leaf order
+     */
+    int[] getPrimitiveIndices() {
+        return primitiveIndices;
+    }
+
+    /**
+     * Builds the node of a range with the binned surface area heuristic and forks the children if they are big enough
+     */
+    private class SAHTask extends RecursiveTask<BVHNode> {
+        private final int start;
+        private final int end;
+
+        SAHTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected BVHNode compute() {
+            int count = end - start;
+            Bins rangeBounds = computeBounds(start, end);
+            BVHNode node = new BVHNode(rangeBounds.toBoundingBox(), start, count);
+            if(count <= minLeafSize) {
+                return node;
+            }
+
+            //put the centroids into bins on every axis and find the cheapest split between two bins
+            float[] centroidMin = rangeBounds.centroidMin;
+            float[] centroidMax = rangeBounds.centroidMax;
+            //small nodes get fewer bins, there is no point in having more bins than primitives
+            int binCount = Math.min(BIN_COUNT, count);
+            Bins bins = computeBins(start, end, binCount, centroidMin, centroidMax);
+
+            float bestCost = Float.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = -1;
+            float[] rightArea = new float[binCount];
+            int[] rightCount = new int[binCount];
+
+            for(int axis = 0; axis < 3; axis++) {
+                if(centroidMax[axis] <= centroidMin[axis]) {
+                    continue;
+                }
+
+                //sweep from the right to get the area and count of everything right of every split
+                float[] box = emptyBox();
+                int sum = 0;
+                for(int bin = binCount - 1; bin > 0; bin--) {
+                    sum += bins.counts[axis][bin];
+                    expandBox(box, bins.boxes[axis], bin * 6);
+                    rightCount[bin] = sum;
+                    rightArea[bin] = surfaceArea(box);
+                }
+
+                //sweep from the left and compare the cost of every split
+                box = emptyBox();
+                sum = 0;
+                for(int bin = 0; bin < binCount - 1; bin++) {
+                    sum += bins.counts[axis][bin];
+                    expandBox(box, bins.boxes[axis], bin * 6);
+                    if(sum == 0 || rightCount[bin + 1] == 0) {
+                        continue;
+                    }
+                    float cost = sum * surfaceArea(box) + rightCount[bin + 1] * rightArea[bin + 1];
+                    if(cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = bin;
+                    }
+                }
+            }
+
+            //all centroids are at the same spot, they can't be split
+            if(bestAxis == -1) {
+                return node;
+            }
+
+            float nodeArea = surfaceArea(rangeBounds.box);
+            float splitCost = TRAVERSAL_COST + (nodeArea > 0 ? bestCost / nodeArea : count);
+            if(count <= maxLeafSize && splitCost >= count) {
+                return node;
+            }
+
+            int middle = partition(start, end, bestAxis, bestBin, binCount, centroidMin[bestAxis], centroidMax[bestAxis]);
+            if(middle == start || middle == end) {
+                middle = (start + end) / 2;
+            }
+
+            SAHTask leftTask = new SAHTask(start, middle);
+            SAHTask rightTask = new SAHTask(middle, end);
+            if(count > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                node.right = rightTask.compute();
+                node.left = leftTask.join();
+            } else {
+                node.left = leftTask.compute();
+                node.right = rightTask.compute();
+            }
+            node.count = 0;
+            return node;
+        }
+    }
+
+    /**
+     * Builds the node of a range of morton-sorted primitives, split at the highest bit where the codes of the range differ
+     */
+    private class LBVHTask extends RecursiveTask<BVHNode> {
+        private final int start;
+        private final int end;
+
+        LBVHTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected BVHNode compute() {
+            int count = end - start;
+            if(count <= lbvhLeafSize) {
+                return new BVHNode(computeBounds(start, end).toBoundingBox(), start, count);
+            }
+
+            int middle = findMortonSplit(start, end - 1);
+
+            LBVHTask leftTask = new LBVHTask(start, middle);
+            LBVHTask rightTask = new LBVHTask(middle, end);
+            BVHNode left;
+            BVHNode right;
+            if(count > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+
+            BoundingBox bounds = new BoundingBox();
+            bounds.expand(left.bounds);
+            bounds.expand(right.bounds);
+
+            BVHNode node = new BVHNode(bounds, start, 0);
+            node.left = left;
+            node.right = right;
+            return node;
+        }
+    }
+
+    /**
+     * Finds the first position of the right child, where the morton code differs in the highest bit that is not shared by the whole range
+     * @param first the first position of the range
+     * @param last the last position of the range (inclusive)
+     * @return the first position of the second half
+     */
+    private int findMortonSplit(int first, int last) {
+        int firstCode = mortonCodes[first];
+        int lastCode = mortonCodes[last];
+
+        //identical codes, split in the middle
+        if(firstCode == lastCode) {
+            return (first + last + 1) >>> 1;
+        }
+
+        int commonPrefix = Integer.numberOfLeadingZeros(firstCode ^ lastCode);
+
+        //binary search for the last position that still shares more than the common prefix with the first code
+        int split = first;
+        int step = last - first;
+        do {
+            step = (step + 1) >>> 1;
+            int newSplit = split + step;
+            if(newSplit < last) {
+                int splitPrefix = Integer.numberOfLeadingZeros(firstCode ^ mortonCodes[newSplit]);
+                if(splitPrefix > commonPrefix) {
+                    split = newSplit;
+                }
+            }
+        } while(step > 1);
+
+        return split + 1;
+    }
+
+    /**
+     * Calculates the morton code of every centroid and sorts the primitive indices by it
+     */
+    private void sortByMortonCode() {
+        Bins sceneBounds = computeBounds(0, primitiveCount);
+        float[] centroidMin = sceneBounds.centroidMin;
+        float[] scale = new float[3];
+        for(int axis = 0; axis < 3; axis++) {
+            float extent = sceneBounds.centroidMax[axis] - centroidMin[axis];
+            scale[axis] = extent > 0 ? 1023.0f / extent : 0.0f;
+        }
+
+        //the morton code is in the upper 32 bits, so sorting the keys sorts the primitive indices by morton code
+        long[] keys = new long[primitiveCount];
+        IntStream.range(0, primitiveCount).parallel().forEach(i -> {
+            int x = (int) ((centroids[i * 3] - centroidMin[0]) * scale[0]);
+            int y = (int) ((centroids[i * 3 + 1] - centroidMin[1]) * scale[1]);
+            int z = (int) ((centroids[i * 3 + 2] - centroidMin[2]) * scale[2]);
+            int code = (spreadBits(x) << 2) | (spreadBits(y) << 1) | spreadBits(z);
+            keys[i] = ((long) code << 32) | i;
+        });
+        Arrays.parallelSort(keys);
+
+        mortonCodes = new int[primitiveCount];
+        for(int i = 0; i < primitiveCount; i++) {
+            primitiveIndices[i] = (int) keys[i];
+            mortonCodes[i] = (int) (keys[i] >>> 32);
+        }
+    }
+
+    /**
+     * Spreads the lower 10 bits of the value so that there are two zero bits between every bit (for interleaving x, y and z)
+     * @param value the value between 0 and 1023
+     * @return the spread bits
+     */
+    private static int spreadBits(int value) {
+        value &= 0x3FF;
+        value = (value | (value << 16)) & 0x030000FF;
+        value = (value | (value << 8)) & 0x0300F00F;
+        value = (value | (value << 4)) & 0x030C30C3;
+        value = (value | (value << 2)) & 0x09249249;
+        return value;
+    }
+
+    /**
+     * Moves all primitives whose centroid lies in a bin left of or at the split bin to the front of the range
+     * @return the first position of the right half
+     */
+    private int partition(int start, int end, int axis, int splitBin, int binCount, float centroidMin, float centroidMax) {
+        float binScale = binCount / (centroidMax - centroidMin);
+        int left = start;
+        int right = end - 1;
+
+        while(left <= right) {
+            if(getBin(centroids[primitiveIndices[left] * 3 + axis], centroidMin, binScale, binCount) <= splitBin) {
+                left++;
+            } else {
+                int temp = primitiveIndices[left];
+                primitiveIndices[left] = primitiveIndices[right];
+                primitiveIndices[right] = temp;
+                right--;
+            }
+        }
+        return left;
+    }
+
+    private static int getBin(float centroid, float centroidMin, float binScale, int binCount) {
+        return Math.min(binCount - 1, (int) ((centroid - centroidMin) * binScale));
+    }
+
+    /**
+     * Calculates the bounds and centroid bounds of a range, in parallel chunks if the range is big
+     */
+    private Bins computeBounds(int start, int end) {
+        if(end - start > PARALLEL_BINNING_THRESHOLD) {
+            return splitIntoChunks(start, end)
+                    .mapToObj(chunk -> computeBounds(chunk, Math.min(chunk + PARALLEL_BINNING_THRESHOLD, end)))
+                    .reduce(Bins::merge).orElseThrow();
+        }
+
+        Bins result = new Bins(0);
+        for(int i = start; i < end; i++) {
+            int primitive = primitiveIndices[i];
+            expandBox(result.box, primitiveBoxes, primitive * 6);
+            for(int axis = 0; axis < 3; axis++) {
+                float centroid = centroids[primitive * 3 + axis];
+                result.centroidMin[axis] = Math.min(result.centroidMin[axis], centroid);
+                result.centroidMax[axis] = Math.max(result.centroidMax[axis], centroid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Puts the primitives of a range into bins on every axis (count and bounds per bin), in parallel chunks if the range is big
+     */
+    private Bins computeBins(int start, int end, int binCount, float[] centroidMin, float[] centroidMax) {
+        if(end - start > PARALLEL_BINNING_THRESHOLD) {
+            return splitIntoChunks(start, end)
+                    .mapToObj(chunk -> computeBins(chunk, Math.min(chunk + PARALLEL_BINNING_THRESHOLD, end), binCount, centroidMin, centroidMax))
+                    .reduce(Bins::merge).orElseThrow();
+        }
+
+        Bins result = new Bins(binCount);
+        float[] binScale = new float[3];
+        for(int axis = 0; axis < 3; axis++) {
+            float extent = centroidMax[axis] - centroidMin[axis];
+            binScale[axis] = extent > 0 ? binCount / extent : 0.0f;
+        }
+
+        for(int i = start; i < end; i++) {
+            int primitive = primitiveIndices[i];
+            for(int axis = 0; axis < 3; axis++) {
+                int bin = getBin(centroids[primitive * 3 + axis], centroidMin[axis], binScale[axis], binCount);
+                result.counts[axis][bin]++;
+                expandBox(result.boxes[axis], primitiveBoxes, primitive * 6, bin * 6);
+            }
+        }
+        return result;
+    }
+
+    private static IntStream splitIntoChunks(int start, int end) {
+        return IntStream.iterate(start, chunk -> chunk < end, chunk -> chunk + PARALLEL_BINNING_THRESHOLD).parallel();
+    }
+
+    /**
+     * creates a box array (minX, minY, minZ, maxX, maxY, maxZ) that contains nothing
+     */
+    private static float[] emptyBox() {
+        return new float[] {
+                Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+        };
+    }
+
+    private static void expandBox(float[] box, float[] other, int otherOffset) {
+        expandBox(box, other, otherOffset, 0);
+    }
+
+    private static void expandBox(float[] box, float[] other, int otherOffset, int boxOffset) {
+        for(int axis = 0; axis < 3; axis++) {
+            box[boxOffset + axis] = Math.min(box[boxOffset + axis], other[otherOffset + axis]);
+            box[boxOffset + 3 + axis] = Math.max(box[boxOffset + 3 + axis], other[otherOffset + 3 + axis]);
+        }
+    }
+
+    private static float surfaceArea(float[] box) {
+        float extentX = box[3] - box[0];
+        float extentY = box[4] - box[1];
+        float extentZ = box[5] - box[2];
+        if(extentX < 0 || extentY < 0 || extentZ < 0) {
+            return 0.0f;
+        }
+        return 2 * (extentX * extentY + extentY * extentZ + extentZ * extentX);
+    }
+
+    /**
+     * Bounds of a range (box and centroid bounds) and the SAH bins of every axis (if binCount > 0), mergeable so chunks can be computed in parallel
+     */
+    private static class Bins {
+        final float[] box = emptyBox();
+        final float[] centroidMin = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        final float[] centroidMax = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        final int binCount;
+        final int[][] counts;
+        final float[][] boxes;
+
+        Bins(int binCount) {
+            this.binCount = binCount;
+            if(binCount > 0) {
+                counts = new int[3][binCount];
+                boxes = new float[3][binCount * 6];
+                for(int axis = 0; axis < 3; axis++) {
+                    for(int offset = 0; offset < binCount * 6; offset += 6) {
+                        Arrays.fill(boxes[axis], offset, offset + 3, Float.POSITIVE_INFINITY);
+                        Arrays.fill(boxes[axis], offset + 3, offset + 6, Float.NEGATIVE_INFINITY);
+                    }
+                }
+            } else {
+                counts = null;
+                boxes = null;
+            }
+        }
+
+        Bins merge(Bins other) {
+            expandBox(box, other.box, 0);
+            for(int axis = 0; axis < 3; axis++) {
+                centroidMin[axis] = Math.min(centroidMin[axis], other.centroidMin[axis]);
+                centroidMax[axis] = Math.max(centroidMax[axis], other.centroidMax[axis]);
+                if(counts != null) {
+                    for(int bin = 0; bin < binCount; bin++) {
+                        counts[axis][bin] += other.counts[axis][bin];
+                        expandBox(boxes[axis], other.boxes[axis], bin * 6, bin * 6);
+                    }
+                }
+            }
+            return this;
+        }
+
+        BoundingBox toBoundingBox() {
+            return new BoundingBox(new MyPoint(box[0], box[1], box[2]), new MyPoint(box[3], box[4], box[5]));
+        }
+    }
+}
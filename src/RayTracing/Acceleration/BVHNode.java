@@ -0,0 +1,24 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+
+/**
+ * A node of the {@link BVH}. Inner nodes have a left and right child, leaf nodes point to a range (start, count) of primitives.
+ */
+class BVHNode {
+    BoundingBox bounds;
+    BVHNode left;
+    BVHNode right;
+    int start;
+    int count;
+
+    BVHNode(BoundingBox bounds, int start, int count) {
+        this.bounds = bounds;
+        this.start = start;
+        this.count = count;
+    }
+
+    boolean isLeaf() {
+        return left == null;
+    }
+}
@@ -0,0 +1,56 @@
+package RayTracing.Acceleration;
+
+/**
+ * Statistics about a built {@link BVH}: how long the build took and how the tree looks like
+ */
+public class BVHStatistics {
+    private final EBuildMode buildMode;
+    private final long buildTimeMillis;
+    private final int primitiveCount;
+    private final int nodeCount;
+    private final int leafCount;
+    private final int maxDepth;
+
+    BVHStatistics(EBuildMode buildMode, int primitiveCount, int nodeCount, int leafCount, int maxDepth, long buildTimeNanos) {
+        this.buildMode = buildMode;
+        this.buildTimeMillis = buildTimeNanos / 1_000_000;
+        this.primitiveCount = primitiveCount;
+        this.nodeCount = nodeCount;
+        this.leafCount = leafCount;
+        this.maxDepth = maxDepth;
+    }
+
+    public EBuildMode getBuildMode() {
+        return buildMode;
+    }
+
+    public long getBuildTimeMillis() {
+        return buildTimeMillis;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public float getAveragePrimitivesPerLeaf() {
+        return leafCount == 0 ? 0.0f : (float) primitiveCount / leafCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BVH (" + buildMode + ") built in " + buildTimeMillis + "ms: " +
+                primitiveCount + " primitives, " +
+                nodeCount + " nodes (4 wide), " +
+                leafCount + " leaves, " +
+                "max depth " + maxDepth + ", " +
+                String.format("%.2f", getAveragePrimitivesPerLeaf()) + " primitives per leaf";
+    }
+}
@@ -0,0 +1,23 @@
+package RayTracing.Acceleration;
+
+/**
+ * The acceleration structure the {@link RayTracing.RayTracer RayTracer} uses to find the surfaces a ray hits
+ */
+public enum EAcceleratorType {
+    /**
+     * chooses the structure from the scene statistics (number of surfaces and how similar their sizes are)
+     */
+    AUTO,
+    /**
+     * checks every surface, the fastest for very small scenes
+     */
+    LINEAR,
+    /**
+     * bounding volume hierarchy over the surfaces, the best for scenes with surfaces of very different sizes
+     */
+    BVH,
+    /**
+     * uniform grid traversed with 3D-DDA, the best for many surfaces of similar size (e.g. lots of spheres)
+     */
+    GRID
+}
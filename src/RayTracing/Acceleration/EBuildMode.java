@@ -0,0 +1,15 @@
+package RayTracing.Acceleration;
+
+/**
+ * How the {@link BVHBuilder} splits the primitives into nodes
+ */
+public enum EBuildMode {
+    /**
+     * binned surface area heuristic, slower to build but the fastest to traverse
+     */
+    SAH,
+    /**
+     * linear BVH, primitives are sorted along a morton curve and split at the morton code bits, very fast to build (for previews)
+     */
+    LBVH
+}
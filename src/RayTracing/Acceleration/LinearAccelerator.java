@@ -0,0 +1,57 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+import SceneData.Surface.Surface;
+
+import java.util.List;
+
+/**
+ * No acceleration at all, every ray is checked against every surface of the scene
+ */
+public class LinearAccelerator implements Accelerator {
+    private final List<Surface> surfaces;
+
+    public LinearAccelerator(List<Surface> surfaces) {
+        this.surfaces = surfaces;
+    }
+
+    @Override
+    public List<Surface> getSurfaces() {
+        return surfaces;
+    }
+
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        boolean found = false;
+
+        //go through each surface in the scene, every surface saves itself in the hit if it is closer
+        for(int i = 0; i < surfaces.size(); i++) {
+            if(surfaces.get(i).intersect(ray, hit)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks every surface with the whole packet, so the rays stay together inside the surfaces (e.g. the hierarchy of a mesh)
+     */
+    @Override
+    public void intersect(RayPacket packet, Hit[] hits) {
+        for(int i = 0; i < surfaces.size(); i++) {
+            surfaces.get(i).intersect(packet, 0, hits);
+        }
+    }
+
+    @Override
+    public boolean occluded(Ray ray) {
+        for(int i = 0; i < surfaces.size(); i++) {
+            if(surfaces.get(i).occluded(ray)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
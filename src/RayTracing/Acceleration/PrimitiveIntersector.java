@@ -0,0 +1,60 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+
+/**
+ * Intersection test of a single primitive, used by the acceleration structures when a ray reaches a leaf.
+ */
+@FunctionalInterface
+public interface PrimitiveIntersector {
+    /**
+     * Checks if the ray intersects the primitive with the given index after tMin of the ray and closer than the hit found so far,
+     * and if so saves it in the hit
+     * @param primitiveIndex the index of the primitive (position in the list the structure was built from)
+     * @param ray the ray to check
+     * @param hit the closest hit so far, updated if the primitive is closer
+     * @return true if the primitive is closer than the previous hit, false otherwise
+     */
+    boolean intersect(int primitiveIndex, Ray ray, Hit hit);
+
+    /**
+     * Checks all primitives of a continuous range (e.g. a leaf) and saves the closest one in the hit, one after the other by default.<br>
+     * Can be overridden to test several primitives at once.
+     * @param start the index of the first primitive
+     * @param end the index after the last primitive
+     * @param ray the ray to check
+     * @param hit the closest hit so far, updated if a primitive of the range is closer
+     * @return true if a primitive of the range is closer than the previous hit, false otherwise
+     */
+    default boolean intersect(int start, int end, Ray ray, Hit hit) {
+        boolean found = false;
+        for(int i = start; i < end; i++) {
+            if(intersect(i, ray, hit)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks all primitives of a continuous range for the rays of a packet from firstRay on, ray by ray by default.<br>
+     * Can be overridden if the primitives can traverse packets themselves (e.g. a mesh with its own hierarchy).
+     * @param start the index of the first primitive
+     * @param end the index after the last primitive
+     * @param packet the rays to check
+     * @param firstRay the first ray of the packet that reached the range, the rays before are skipped
+     * @param hits the closest hit of every ray so far (same index as in the packet)
+     * @return true if a primitive of the range is closer than the previous hit for any of the rays, false otherwise
+     */
+    default boolean intersect(int start, int end, RayPacket packet, int firstRay, Hit[] hits) {
+        boolean found = false;
+        for(int i = firstRay; i < packet.getSize(); i++) {
+            if(intersect(start, end, packet.getRay(i), hits[i])) {
+                found = true;
+            }
+        }
+        return found;
+    }
+}
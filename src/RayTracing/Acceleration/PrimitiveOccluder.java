@@ -0,0 +1,34 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.Ray;
+
+/**
+ * Any-hit test of a single primitive, used by the acceleration structures for shadow rays, where only the existence of a blocker matters.
+ */
+@FunctionalInterface
+public interface PrimitiveOccluder {
+    /**
+     * Checks if the primitive with the given index blocks the ray somewhere between tMin and tMax of the ray
+     * @param primitiveIndex the index of the primitive (position in the list the structure was built from)
+     * @param ray the ray to check
+     * @return true if the primitive is hit between tMin and tMax, false otherwise
+     */
+    boolean occluded(int primitiveIndex, Ray ray);
+
+    /**
+     * Checks if any primitive of a continuous range (e.g. a leaf) blocks the ray, one after the other by default.<br>
+     * Can be overridden to test several primitives at once.
+     * @param start the index of the first primitive
+     * @param end the index after the last primitive
+     * @param ray the ray to check
+     * @return true if a primitive of the range is hit between tMin and tMax, false otherwise
+     */
+    default boolean occluded(int start, int end, Ray ray) {
+        for(int i = start; i < end; i++) {
+            if(occluded(i, ray)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,281 @@
+package RayTracing.Acceleration;
+
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
+import SceneData.DataTypes.Ray;
+import SceneData.Surface.SphereArrays;
+import SceneData.Surface.Surface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over the bounds of all surfaces, traversed cell by cell with 3D-DDA (Amanatides & Woo).<br>
+ * Every cell references the surfaces whose boxes overlap it, stored compressed in two arrays:
+ * the surfaces of cell i are cellSurfaces[cellStart[i]] to cellSurfaces[cellStart[i + 1] - 1].<br>
+ * Builds and traverses faster than a hierarchy when there are many surfaces of similar size (e.g. particle dumps of spheres).
+ * The spheres are also copied into {@link SphereArrays} in cell order, so the spheres of a cell are tested together with the Vector API if it is available.
+ */
+public class UniformGrid implements Accelerator {
+    /** average number of surfaces per cell the resolution is chosen for */
+    private static final float SURFACES_PER_CELL = 0.5f;
+    private static final int MAX_RESOLUTION = 128;
+
+    private final List<Surface> surfaces;
+    private final BoundingBox bounds;
+    private final int[] resolution = new int[3];
+    private final float[] cellSize = new float[3];
+    private final int[] cellStart;
+    private final int[] cellSurfaces;
+    private final SphereArrays cellSpheres;
+
+    public UniformGrid(List<Surface> surfaces) {
+        this.surfaces = surfaces;
+        this.bounds = new BoundingBox();
+
+        List<BoundingBox> surfaceBounds = new ArrayList<>(surfaces.size());
+        for(Surface surface : surfaces) {
+            BoundingBox surfaceBox = surface.getBoundingBox();
+            surfaceBounds.add(surfaceBox);
+            if(!surfaceBox.isEmpty()) {
+                bounds.expand(surfaceBox);
+            }
+        }
+
+        chooseResolution(surfaces.size());
+        int cellCount = resolution[0] * resolution[1] * resolution[2];
+
+        //count the surfaces of every cell, turn the counts into start positions and fill in the surfaces
+        cellStart = new int[cellCount + 1];
+        int[][] cellRanges = new int[surfaces.size()][];
+        for(int i = 0; i < surfaces.size(); i++) {
+            BoundingBox surfaceBox = surfaceBounds.get(i);
+            if(surfaceBox.isEmpty()) {
+                continue;
+            }
+            cellRanges[i] = getCellRange(surfaceBox);
+            forEachCell(cellRanges[i], cell -> cellStart[cell + 1]++);
+        }
+        for(int cell = 0; cell < cellCount; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+
+        cellSurfaces = new int[cellStart[cellCount]];
+        int[] fillPosition = new int[cellCount];
+        for(int i = 0; i < surfaces.size(); i++) {
+            if(cellRanges[i] == null) {
+                continue;
+            }
+            int surfaceIndex = i;
+            forEachCell(cellRanges[i], cell -> cellSurfaces[cellStart[cell] + fillPosition[cell]++] = surfaceIndex);
+        }
+        cellSpheres = new SphereArrays(surfaces, cellSurfaces);
+    }
+
+    /**
+     * Chooses the number of cells on every axis, so that the cells are roughly cubes and there are about
+     * (surfaceCount / SURFACES_PER_CELL) cells in total
+     * @param surfaceCount the number of surfaces in the grid
+     */
+    private void chooseResolution(int surfaceCount) {
+        if(bounds.isEmpty()) {
+            resolution[0] = resolution[1] = resolution[2] = 1;
+            return;
+        }
+
+        float[] extent = new float[3];
+        for(int axis = 0; axis < 3; axis++) {
+            extent[axis] = bounds.getMax(axis) - bounds.getMin(axis);
+        }
+        float maxExtent = Math.max(extent[0], Math.max(extent[1], extent[2]));
+        //treat flat axes as if they had a small thickness, so the volume is never 0
+        float minimumExtent = maxExtent * 1e-3f;
+        float volume = Math.max(extent[0], minimumExtent) * Math.max(extent[1], minimumExtent) * Math.max(extent[2], minimumExtent);
+        float cellsPerUnit = (float) Math.cbrt(surfaceCount / SURFACES_PER_CELL / volume);
+
+        for(int axis = 0; axis < 3; axis++) {
+            resolution[axis] = Math.max(1, Math.min(MAX_RESOLUTION, (int) (extent[axis] * cellsPerUnit)));
+            cellSize[axis] = extent[axis] / resolution[axis];
+        }
+    }
+
+    /**
+     * Returns the range of cells the box overlaps
+     * @return the first and last cell on every axis (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private int[] getCellRange(BoundingBox box) {
+        int[] range = new int[6];
+        for(int axis = 0; axis < 3; axis++) {
+            range[axis] = getCell(box.getMin(axis), axis);
+            range[axis + 3] = getCell(box.getMax(axis), axis);
+        }
+        return range;
+    }
+
+    private int getCell(float position, int axis) {
+        if(cellSize[axis] <= 0) {
+            return 0;
+        }
+        int cell = (int) ((position - bounds.getMin(axis)) / cellSize[axis]);
+        return Math.max(0, Math.min(resolution[axis] - 1, cell));
+    }
+
+    private void forEachCell(int[] range, IntConsumer action) {
+        for(int z = range[2]; z <= range[5]; z++) {
+            for(int y = range[1]; y <= range[4]; y++) {
+                for(int x = range[0]; x <= range[3]; x++) {
+                    action.accept((z * resolution[1] + y) * resolution[0] + x);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Surface> getSurfaces() {
+        return surfaces;
+    }
+
+    /**
+     * Walks through the cells the ray passes (nearest first) and checks the surfaces of every cell,
+     * until the closest intersection so far lies in the current cell
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        CellWalk walk = startWalk(ray, hit.getT());
+        if(walk == null) {
+            return false;
+        }
+
+        boolean found = false;
+
+        do {
+            int cellIndex = walk.getCellIndex();
+            if(cellSpheres.intersect(cellStart[cellIndex], cellStart[cellIndex + 1], ray, hit)) {
+                found = true;
+            }
+        } while(walk.next(hit.getT()));
+
+        return found;
+    }
+
+    /**
+     * Walks through the cells the ray passes until tMax of the ray and stops at the first surface that blocks the ray
+     */
+    @Override
+    public boolean occluded(Ray ray) {
+        float tMax = ray.getTMax();
+        CellWalk walk = startWalk(ray, tMax);
+        if(walk == null) {
+            return false;
+        }
+
+        do {
+            int cellIndex = walk.getCellIndex();
+            if(cellSpheres.occluded(cellStart[cellIndex], cellStart[cellIndex + 1], ray)) {
+                return true;
+            }
+        } while(walk.next(tMax));
+
+        return false;
+    }
+
+    /**
+     * Finds the cell where the ray enters the grid and sets up the 3D-DDA from there
+     * @param ray the ray to walk along
+     * @param tMax the maximum distance along the ray
+     * @return the walk starting in the first cell, or null if the ray misses the grid before tMax
+     */
+    private CellWalk startWalk(Ray ray, float tMax) {
+        if(bounds.isEmpty()) {
+            return null;
+        }
+
+        MyPoint rayOrigin = ray.getOrigin();
+        MyVector rayDirection = ray.getDirection();
+        float[] origin = {rayOrigin.getX(), rayOrigin.getY(), rayOrigin.getZ()};
+        float[] direction = {rayDirection.getX(), rayDirection.getY(), rayDirection.getZ()};
+        float[] inverseDirections = {ray.getInverseDirectionX(), ray.getInverseDirectionY(), ray.getInverseDirectionZ()};
+
+        //find where the ray enters the grid
+        float tEnter = 0.0f;
+        float tExit = tMax;
+        for(int axis = 0; axis < 3; axis++) {
+            float inverseDirection = inverseDirections[axis];
+            float t0 = (bounds.getMin(axis) - origin[axis]) * inverseDirection;
+            float t1 = (bounds.getMax(axis) - origin[axis]) * inverseDirection;
+            if(t0 > t1) {
+                float temp = t0;
+                t0 = t1;
+                t1 = temp;
+            }
+            if(t0 > tEnter) tEnter = t0;
+            if(t1 < tExit) tExit = t1;
+        }
+        if(tEnter > tExit) {
+            return null;
+        }
+
+        return new CellWalk(origin, direction, tEnter, tExit);
+    }
+
+    /**
+     * State of the 3D-DDA: current cell, step direction, t of the next cell border and t between two borders on every axis
+     */
+    private final class CellWalk {
+        private final int[] cell = new int[3];
+        private final int[] step = new int[3];
+        private final float[] tNextBorder = new float[3];
+        private final float[] tDelta = new float[3];
+        private final float tExit;
+
+        private CellWalk(float[] origin, float[] direction, float tEnter, float tExit) {
+            this.tExit = tExit;
+            for(int axis = 0; axis < 3; axis++) {
+                cell[axis] = getCell(origin[axis] + direction[axis] * tEnter, axis);
+                if(direction[axis] > 0) {
+                    step[axis] = 1;
+                    tDelta[axis] = cellSize[axis] / direction[axis];
+                    tNextBorder[axis] = (bounds.getMin(axis) + (cell[axis] + 1) * cellSize[axis] - origin[axis]) / direction[axis];
+                } else if(direction[axis] < 0) {
+                    step[axis] = -1;
+                    tDelta[axis] = -cellSize[axis] / direction[axis];
+                    tNextBorder[axis] = (bounds.getMin(axis) + cell[axis] * cellSize[axis] - origin[axis]) / direction[axis];
+                } else {
+                    step[axis] = 0;
+                    tDelta[axis] = Float.MAX_VALUE;
+                    tNextBorder[axis] = Float.MAX_VALUE;
+                }
+            }
+        }
+
+        private int getCellIndex() {
+            return (cell[2] * resolution[1] + cell[1]) * resolution[0] + cell[0];
+        }
+
+        /**
+         * Steps to the next cell on the axis whose border is the closest
+         * @param limit the distance after which nothing is of interest anymore (e.g. the closest intersection so far)
+         * @return true if there is a next cell to check, false if the walk is finished
+         */
+        private boolean next(float limit) {
+            int axis = tNextBorder[0] < tNextBorder[1]
+                    ? (tNextBorder[0] < tNextBorder[2] ? 0 : 2)
+                    : (tNextBorder[1] < tNextBorder[2] ? 1 : 2);
+
+            //the limit lies in the current cell, everything in the following cells is further away
+            if(limit <= tNextBorder[axis] || tNextBorder[axis] > tExit) {
+                return false;
+            }
+
+            cell[axis] += step[axis];
+            if(cell[axis] < 0 || cell[axis] >= resolution[axis]) {
+                return false;
+            }
+            tNextBorder[axis] += tDelta[axis];
+            return true;
+        }
+    }
+}
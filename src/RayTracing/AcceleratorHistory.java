@@ -0,0 +1,31 @@
+package RayTracing;
+
+import RayTracing.Acceleration.Accelerator;
+import RayTracing.Acceleration.AcceleratorFactory;
+import SceneData.Scene;
+
+/**
+ * Acceleration structure of the last rendered frame.<br>
+ * The frames of an animation have the same surfaces, most of them at the same place, so the structure of one frame
+ * only has to be refitted for the next one instead of being built again. Only the structure of the last scene is kept,
+ * so the surfaces (e.g. big meshes) of older scenes are not held in memory.
+ */
+class AcceleratorHistory {
+    private String sceneKey;
+    private Accelerator accelerator;
+
+    /**
+     * Creates the structure of the frame from the structure of the last frame of the same scene and keeps it for the next frame.<br>
+     * Frames that are rendered at the same time wait for each other here, so every frame starts from the structure of the frame before.
+     * @param scene the scene of the frame
+     * @return the acceleration structure over the surfaces of the frame
+     */
+    synchronized Accelerator create(Scene scene) {
+        String key = scene.getOutputFileName();
+        Accelerator previous = key.equals(sceneKey) ? accelerator : null;
+
+        accelerator = AcceleratorFactory.create(scene.getSurfaces(), scene.getAcceleratorType(), previous);
+        sceneKey = key;
+        return accelerator;
+    }
+}
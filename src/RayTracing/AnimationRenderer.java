@@ -0,0 +1,92 @@
+package RayTracing;
+
+import SceneData.DataTypes.FrameBuffer;
+import SceneData.Scene;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Renders the frames of an animation as a pipeline: several frames are rendered at the same time, while the finished frames
+ * are passed on in order (e.g. to a {@link Reader_Writer.GIFStream GIFStream}).<br>
+ * At most maxFramesInFlight frames are rendered or waiting at once, so the memory does not grow with the number of frames.
+ * The frames share the render threads of the {@link RayTracer}, rendering them side by side fills the gaps of a single frame
+ * (building the acceleration structures, the last tiles) and the encoding of the finished frames overlaps with the rendering.
+ */
+public class AnimationRenderer {
+    private final RayTracer rayTracer;
+    private final int maxFramesInFlight;
+
+    /**
+     * @param rayTracer the ray tracer that renders the frames
+     * @param maxFramesInFlight the maximum number of frames that are rendered or waiting to be passed on at once
+     */
+    public AnimationRenderer(RayTracer rayTracer, int maxFramesInFlight) {
+        if(maxFramesInFlight < 1) {
+            throw new IllegalArgumentException("At least one frame has to be in flight, got " + maxFramesInFlight);
+        }
+        this.rayTracer = rayTracer;
+        this.maxFramesInFlight = maxFramesInFlight;
+    }
+
+    /**
+     * Renders the frames and passes them on in order
+     * @param frameCount the number of frames
+     * @param frameScene creates the scene of a frame, every frame needs its own scene (called in frame order on the calling thread)
+     * @param settings the settings of every frame
+     * @param frameConsumer receives the finished frames in frame order (called on the calling thread), the frames are not kept
+     */
+    public void render(int frameCount, IntFunction<Scene> frameScene, RenderSettings settings, Consumer<FrameBuffer> frameConsumer) {
+        ExecutorService frameThreads = Executors.newFixedThreadPool(maxFramesInFlight);
+        Deque<Future<FrameBuffer>> framesInFlight = new ArrayDeque<>();
+
+        try {
+            for(int frame = 0; frame < frameCount; frame++) {
+                //wait for the oldest frame before starting a new one
+                if(framesInFlight.size() >= maxFramesInFlight) {
+                    frameConsumer.accept(waitForFrame(framesInFlight.removeFirst()));
+                }
+                Scene scene = frameScene.apply(frame);
+                framesInFlight.addLast(frameThreads.submit(() -> rayTracer.rayTrace(scene, settings)));
+            }
+            while(!framesInFlight.isEmpty()) {
+                frameConsumer.accept(waitForFrame(framesInFlight.removeFirst()));
+            }
+        } finally {
+            //stop the remaining frames if something went wrong
+            for(Future<FrameBuffer> frame : framesInFlight) {
+                frame.cancel(true);
+            }
+            frameThreads.shutdown();
+        }
+    }
+
+    /**
+     * Waits until the frame is rendered
+     * @param frame the frame to wait for
+     * @return the rendered image
+     */
+    private static FrameBuffer waitForFrame(Future<FrameBuffer> frame) {
+        try {
+            return frame.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a frame", e);
+        } catch (ExecutionException e) {
+            //pass on the exception of the render (e.g. a RuntimeException of a surface)
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if(e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Rendering of a frame failed", e.getCause());
+        }
+    }
+}
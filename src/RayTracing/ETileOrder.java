@@ -0,0 +1,16 @@
+package RayTracing;
+
+/**
+ * In which order the render threads take the tiles of an image
+ */
+public enum ETileOrder {
+    /**
+     * along a morton curve, neighbouring tiles one after the other
+     */
+    MORTON,
+    /**
+     * the most expensive tiles first (longest processing time first), so no expensive tile is left over for the end of the render.
+     * The costs are measured in the previous frame of the same scene, or estimated with a few rays per tile before the render.
+     */
+    LONGEST_FIRST
+}
@@ -0,0 +1,531 @@
+package RayTracing;
+
+import SceneData.Camera;
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.FrameBuffer;
+import SceneData.DataTypes.MyColor;
+import SceneData.DataTypes.MyPoint;
+import SceneData.Light.Light;
+import SceneData.Scene;
+import SceneData.Surface.Surface;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per pixel record of what the rays of every pixel depended on in the last render, so the next render of the changed scene
+ * only has to trace the pixels a change can affect again (see {@link RayTracer#rayTrace(Scene, RenderSettings, PixelDependencies)}).<br><br>
+ * For every pixel the rays of its ray tree (primary, reflected, refracted and shadow rays) record:<br>
+ * - the surfaces they hit, a pixel has to be traced again if the material of one of them changes<br>
+ * - the lights that were shadow tested or illuminated a hit, a pixel has to be traced again if one of them changes<br>
+ * - the voxels of a grid over the scene they passed up to their hit (or the light), a pixel has to be traced again if a surface
+ * moves, is added or is removed in one of these voxels. So a surface that moves into a reflection or a shadow is found as well, not only the pixels it was visible in.
+ * The voxels are about half as large as the typical surface of the scene, as far as the memory of the voxel masks allows (see {@link #createGrid(Scene, int)}).<br><br>
+ * Moved, added and removed surfaces are found by comparing the surfaces of the scene (and their bounding boxes) with the last render.
+ * Changes that do not change a bounding box (e.g. the material of a surface or the color of a light) have to be reported with {@link #markChanged(Surface)} and {@link #markChanged(Light)}.
+ * A new camera, another background color, other sampling settings or a surface that leaves the grid renders the whole image again.<br><br>
+ * When it is worth it: recording the dependencies makes a render of the whole image about 2 to 3 times slower on cheap scenes,
+ * and a render of the affected pixels costs about as much per pixel, plus copying the last image.
+ * So an incremental render only pays off if it traces clearly less than half of the pixels, e.g. when a small surface moves
+ * in a scene with expensive pixels (super sampling, many bounces, big meshes) and many frames or edits follow each other.
+ * It does not pay off if the changed surface is close to a light or to the camera: the voxels of the change are then crossed by the shadow rays
+ * of that light or the primary rays of most pixels, so nearly the whole image is marked even if only a small part of it changes
+ * (e.g. the sphere right below the lights of example5).
+ */
+public class PixelDependencies {
+    /** the longest axis of the grid has at least this many voxels */
+    private static final int MIN_VOXEL_RESOLUTION = 8;
+    /** the longest axis of the grid has at most this many voxels */
+    private static final int MAX_VOXEL_RESOLUTION = 64;
+    /** the voxels are made this much smaller than the typical surface, so a surface only covers a few of them */
+    private static final float VOXELS_PER_SURFACE = 2.0f;
+    /** the voxel masks of all pixels together may use this many bytes, smaller images get finer grids */
+    private static final long MAX_VOXEL_MASK_BYTES = 64L << 20;
+    /** every pixel may use this many bits for its voxel mask, even if the masks of all pixels are larger than MAX_VOXEL_MASK_BYTES */
+    private static final int MIN_VOXEL_BITS = MIN_VOXEL_RESOLUTION * MIN_VOXEL_RESOLUTION * MIN_VOXEL_RESOLUTION;
+    /** the grid is this much (relative to the largest extent of the scene) larger than the scene on every side, so surfaces can move a bit */
+    private static final float GRID_MARGIN = 0.25f;
+    /** the boxes of changed surfaces are enlarged by this much of a voxel, so rays that only touch a voxel border are not missed */
+    private static final float BOX_TOLERANCE = 1e-3f;
+
+    //state of the last render
+    private FrameBuffer image;
+    private Camera camera;
+    private MyColor backgroundColor;
+    private String samplingKey;
+    private final Map<Surface, Integer> surfaceIds = new IdentityHashMap<>();
+    private final Map<Surface, BoundingBox> surfaceBounds = new IdentityHashMap<>();
+    private final Map<Light, Integer> lightIds = new IdentityHashMap<>();
+    private final Set<Light> lights = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long[] lightBits = new long[0];
+    private int nextSurfaceId;
+    private int nextLightId;
+    private final BitSet freeSurfaceIds = new BitSet();
+    private final BitSet freeLightIds = new BitSet();
+    private final Set<Surface> changedSurfaces = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Light> changedLights = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    //the voxel grid (cubic voxels, the number of voxels on every axis follows the extent of the scene on the axis)
+    private final float[] gridMin = new float[3];
+    private final float[] gridMax = new float[3];
+    private final float[] voxelSize = new float[3];
+    private final int[] resolution = new int[3];
+    private int voxelWords;
+
+    //the dependencies of every pixel (index y * width + x)
+    private int width;
+    private int[][] pixelSurfaces;
+    private long[] pixelLights;
+    private long[] pixelVoxels;
+
+    /** the pixels the current render traces, null for all */
+    private boolean[] affectedPixels;
+    private int affectedPixelCount;
+
+    /**
+     * Reports a change of the surface, that does not change its bounding box (e.g. of its material), so the pixels that hit it are traced again.
+     * Moving a surface does not have to be reported.
+     * @param surface the changed surface
+     */
+    public synchronized void markChanged(Surface surface) {
+        changedSurfaces.add(surface);
+    }
+
+    /**
+     * Reports a change of the light (e.g. of its color or position), so the pixels it illuminates are traced again
+     * @param light the changed light
+     */
+    public synchronized void markChanged(Light light) {
+        changedLights.add(light);
+    }
+
+    /**
+     * Returns the number of pixels the last render traced
+     * @return the number of traced pixels (all pixels, if the whole image was rendered)
+     */
+    public int getAffectedPixelCount() {
+        return affectedPixelCount;
+    }
+
+    /**
+     * Finds the pixels the changes since the last render affect, or prepares the record for a render of the whole image
+     * @param scene the changed scene
+     * @param settings the settings of the render
+     * @return true if only the affected pixels have to be traced (see {@link #isAffected(int, int)}), false if the whole image has to be rendered
+     */
+    synchronized boolean prepare(Scene scene, RenderSettings settings) {
+        boolean incremental = findAffectedPixels(scene, settings);
+        if(!incremental) {
+            startRecord(scene, settings);
+        }
+
+        //every surface and light gets an id, which stays the same as long as it is in the scene (ids of removed ones are used again)
+        for(Surface surface : scene.getSurfaces()) {
+            if(!surfaceIds.containsKey(surface)) {
+                int id = freeSurfaceIds.nextSetBit(0);
+                if(id >= 0) {
+                    freeSurfaceIds.clear(id);
+                } else {
+                    id = nextSurfaceId++;
+                }
+                surfaceIds.put(surface, id);
+            }
+        }
+        lightBits = new long[scene.getLights().size()];
+        for(int i = 0; i < lightBits.length; i++) {
+            Light light = scene.getLights().get(i);
+            if(!lightIds.containsKey(light)) {
+                int id = freeLightIds.nextSetBit(0);
+                if(id >= 0) {
+                    freeLightIds.clear(id);
+                } else {
+                    id = nextLightId++;
+                }
+                lightIds.put(light, id);
+            }
+            lightBits[i] = getLightBit(lightIds.get(light));
+        }
+        return incremental;
+    }
+
+    /**
+     * Saves the image and the state of the scene of the finished render, the following changes are compared with them
+     * @param scene the rendered scene
+     * @param image the rendered image
+     */
+    synchronized void finish(Scene scene, FrameBuffer image) {
+        this.image = image.copy();
+        surfaceBounds.clear();
+        for(Surface surface : scene.getSurfaces()) {
+            surfaceBounds.put(surface, surface.getBoundingBox());
+        }
+        lights.clear();
+        lights.addAll(scene.getLights());
+
+        //forget the surfaces and lights that are not in the scene anymore (e.g. replaced by the copies of a new frame), so they are not kept alive.
+        //No pixel depends on them anymore: every pixel that did was traced again by this render
+        surfaceIds.entrySet().removeIf(entry -> {
+            boolean removed = !surfaceBounds.containsKey(entry.getKey());
+            if(removed) {
+                freeSurfaceIds.set(entry.getValue());
+            }
+            return removed;
+        });
+        lightIds.entrySet().removeIf(entry -> {
+            boolean removed = !lights.contains(entry.getKey());
+            if(removed) {
+                freeLightIds.set(entry.getValue());
+            }
+            return removed;
+        });
+        changedSurfaces.clear();
+        changedLights.clear();
+        affectedPixels = null;
+    }
+
+    /**
+     * Returns the image of the last render, the pixels the changes do not affect are taken from it
+     * @return a copy of the last image
+     */
+    FrameBuffer getImage() {
+        return image.copy();
+    }
+
+    /**
+     * Checks if a pixel has to be traced in the current render
+     * @param x the x coordinate of the pixel (like in {@link Camera#getRayToPixel(int, int)})
+     * @param y the y coordinate of the pixel
+     * @return true if the pixel is affected by a change, or the whole image is rendered
+     */
+    boolean isAffected(int x, int y) {
+        return affectedPixels == null || affectedPixels[y * width + x];
+    }
+
+    /**
+     * Creates the record a render thread fills with the dependencies of one pixel after the other
+     * @return an empty record
+     */
+    PixelRecord createRecord() {
+        return new PixelRecord(this);
+    }
+
+    /**
+     * Saves the dependencies of a traced pixel
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param record the dependencies of all rays of the pixel
+     */
+    void store(int x, int y, PixelRecord record) {
+        int pixel = y * width + x;
+        pixelSurfaces[pixel] = record.getSurfaceIds();
+        pixelLights[pixel] = record.getLights();
+        System.arraycopy(record.getVoxels(), 0, pixelVoxels, pixel * voxelWords, voxelWords);
+    }
+
+    int getSurfaceId(Surface surface) {
+        return surfaceIds.get(surface);
+    }
+
+    /**
+     * Returns the bits of the lights of the scene in the light mask of a pixel, in the order of the lights of the scene
+     * @return the bit of every light of the current render
+     */
+    long[] getLightBits() {
+        return lightBits;
+    }
+
+    float[] getGridMin() {
+        return gridMin;
+    }
+
+    float[] getGridMax() {
+        return gridMax;
+    }
+
+    float[] getVoxelSize() {
+        return voxelSize;
+    }
+
+    /**
+     * Returns the number of voxels of the grid on every axis
+     * @return the resolution on the x, y and z axis
+     */
+    int[] getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the number of longs of the voxel mask of a pixel
+     * @return the length of a voxel mask
+     */
+    int getVoxelWords() {
+        return voxelWords;
+    }
+
+    /**
+     * Returns the bit of a light in the light mask of a pixel, all lights after the 63rd share the last bit
+     * @param lightId the id of the light
+     * @return the bit of the light
+     */
+    static long getLightBit(int lightId) {
+        return 1L << Math.min(lightId, Long.SIZE - 1);
+    }
+
+    /**
+     * Compares the scene with the last render and marks the pixels that depend on something that changed
+     * @return true if the affected pixels are marked, false if the whole image has to be rendered
+     */
+    private boolean findAffectedPixels(Scene scene, RenderSettings settings) {
+        Camera sceneCamera = scene.getCamera();
+        if(image == null || sceneCamera != camera || image.getWidth() != sceneCamera.getWidth() || image.getHeight() != sceneCamera.getHeight()
+                || !isSameColor(scene.getBackgroundColor(), backgroundColor) || !getSamplingKey(settings).equals(samplingKey)) {
+            return false;
+        }
+
+        BitSet dirtySurfaces = new BitSet();
+        long[] dirtyVoxels = new long[voxelWords];
+        long dirtyLights = 0;
+        boolean lightAdded = false;
+
+        //moved, added and changed surfaces
+        Set<Surface> sceneSurfaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Surface surface : scene.getSurfaces()) {
+            sceneSurfaces.add(surface);
+            BoundingBox box = surface.getBoundingBox();
+            BoundingBox lastBox = surfaceBounds.get(surface);
+            if(lastBox == null) {
+                if(!markBox(dirtyVoxels, box)) {
+                    return false;
+                }
+                continue;
+            }
+            if(!isSameBox(box, lastBox)) {
+                if(!markBox(dirtyVoxels, box) || !markBox(dirtyVoxels, lastBox)) {
+                    return false;
+                }
+                dirtySurfaces.set(surfaceIds.get(surface));
+            }
+            if(changedSurfaces.contains(surface)) {
+                dirtySurfaces.set(surfaceIds.get(surface));
+            }
+        }
+
+        //removed surfaces
+        for(Map.Entry<Surface, BoundingBox> entry : surfaceBounds.entrySet()) {
+            if(!sceneSurfaces.contains(entry.getKey())) {
+                if(!markBox(dirtyVoxels, entry.getValue())) {
+                    return false;
+                }
+                dirtySurfaces.set(surfaceIds.get(entry.getKey()));
+            }
+        }
+
+        //added, removed and changed lights
+        Set<Light> sceneLights = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Light light : scene.getLights()) {
+            sceneLights.add(light);
+            if(!lights.contains(light)) {
+                lightAdded = true;
+            } else if(changedLights.contains(light)) {
+                dirtyLights |= getLightBit(lightIds.get(light));
+            }
+        }
+        for(Light light : lights) {
+            if(!sceneLights.contains(light)) {
+                dirtyLights |= getLightBit(lightIds.get(light));
+            }
+        }
+
+        //a pixel is affected if it depends on anything that changed, a new light illuminates every pixel that hits a surface
+        int pixelCount = pixelLights.length;
+        affectedPixels = new boolean[pixelCount];
+        affectedPixelCount = 0;
+        for(int pixel = 0; pixel < pixelCount; pixel++) {
+            boolean affected = (pixelLights[pixel] & dirtyLights) != 0 || (lightAdded && pixelSurfaces[pixel].length > 0);
+            for(int word = 0; word < voxelWords && !affected; word++) {
+                affected = (pixelVoxels[pixel * voxelWords + word] & dirtyVoxels[word]) != 0;
+            }
+            for(int i = 0; i < pixelSurfaces[pixel].length && !affected; i++) {
+                affected = dirtySurfaces.get(pixelSurfaces[pixel][i]);
+            }
+            if(affected) {
+                affectedPixels[pixel] = true;
+                affectedPixelCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets all dependencies and sets up the grid over the scene for a render of the whole image
+     */
+    private void startRecord(Scene scene, RenderSettings settings) {
+        Camera sceneCamera = scene.getCamera();
+        camera = sceneCamera;
+        backgroundColor = new MyColor(scene.getBackgroundColor().getR(), scene.getBackgroundColor().getG(), scene.getBackgroundColor().getB());
+        samplingKey = getSamplingKey(settings);
+        width = sceneCamera.getWidth();
+        int pixelCount = sceneCamera.getWidth() * sceneCamera.getHeight();
+        affectedPixels = null;
+        affectedPixelCount = pixelCount;
+
+        surfaceIds.clear();
+        surfaceBounds.clear();
+        lightIds.clear();
+        lights.clear();
+        nextSurfaceId = 0;
+        nextLightId = 0;
+        freeSurfaceIds.clear();
+        freeLightIds.clear();
+        changedSurfaces.clear();
+        changedLights.clear();
+
+        createGrid(scene, pixelCount);
+        pixelSurfaces = new int[pixelCount][];
+        pixelLights = new long[pixelCount];
+        pixelVoxels = new long[pixelCount * voxelWords];
+    }
+
+    /**
+     * Sets up the voxel grid over the scene (with a margin, so surfaces can move a bit).<br>
+     * The voxels are cubes about half as large as the typical (median) surface, so a moved surface only marks the pixels whose rays passed near it.
+     * The finer the grid the larger the voxel masks of the pixels, so the number of voxels is reduced until the masks of all pixels fit into MAX_VOXEL_MASK_BYTES,
+     * but the longest axis always has at least MIN_VOXEL_RESOLUTION voxels.
+     * @param scene the scene of the render
+     * @param pixelCount the number of pixels of the image
+     */
+    private void createGrid(Scene scene, int pixelCount) {
+        BoundingBox sceneBounds = new BoundingBox();
+        List<Float> surfaceSizes = new ArrayList<>();
+        for(Surface surface : scene.getSurfaces()) {
+            BoundingBox box = surface.getBoundingBox();
+            if(!box.isEmpty()) {
+                sceneBounds.expand(box);
+                float size = 0.0f;
+                for(int axis = 0; axis < 3; axis++) {
+                    size = Math.max(size, box.getMax(axis) - box.getMin(axis));
+                }
+                surfaceSizes.add(size);
+            }
+        }
+        if(sceneBounds.isEmpty()) {
+            sceneBounds.expand(new MyPoint(0, 0, 0));
+        }
+
+        float maxExtent = 0.0f;
+        for(int axis = 0; axis < 3; axis++) {
+            maxExtent = Math.max(maxExtent, sceneBounds.getMax(axis) - sceneBounds.getMin(axis));
+        }
+        float margin = maxExtent > 0 ? maxExtent * GRID_MARGIN : 1.0f;
+        float gridExtent = maxExtent + 2 * margin;
+
+        //voxels per surface on the longest axis, then as many voxels as the memory allows
+        int maxResolution = MIN_VOXEL_RESOLUTION;
+        if(!surfaceSizes.isEmpty()) {
+            Collections.sort(surfaceSizes);
+            float surfaceSize = surfaceSizes.get((surfaceSizes.size() - 1) / 2);
+            if(surfaceSize > 0) {
+                maxResolution = (int) Math.ceil(gridExtent / surfaceSize * VOXELS_PER_SURFACE);
+            }
+        }
+        maxResolution = Math.max(MIN_VOXEL_RESOLUTION, Math.min(MAX_VOXEL_RESOLUTION, maxResolution));
+        long maxVoxelBits = Math.max(MIN_VOXEL_BITS, MAX_VOXEL_MASK_BYTES * Byte.SIZE / Math.max(1, pixelCount));
+
+        while(true) {
+            float size = gridExtent / maxResolution;
+            long voxelCount = 1;
+            for(int axis = 0; axis < 3; axis++) {
+                float extent = sceneBounds.getMax(axis) - sceneBounds.getMin(axis) + 2 * margin;
+                resolution[axis] = Math.max(1, Math.min(maxResolution, (int) Math.ceil(extent / size)));
+                voxelSize[axis] = size;
+                gridMin[axis] = sceneBounds.getMin(axis) - margin;
+                gridMax[axis] = gridMin[axis] + resolution[axis] * size;
+                voxelCount *= resolution[axis];
+            }
+            if(voxelCount <= maxVoxelBits || maxResolution == MIN_VOXEL_RESOLUTION) {
+                voxelWords = (int) ((voxelCount + Long.SIZE - 1) / Long.SIZE);
+                return;
+            }
+            maxResolution--;
+        }
+    }
+
+    /**
+     * Marks the voxels the box (slightly enlarged) overlaps
+     * @param voxels the voxel mask to mark the voxels in
+     * @param box the box of a changed surface
+     * @return true if the box lies in the grid, false if it (partly) lies outside and the whole image has to be rendered
+     */
+    private boolean markBox(long[] voxels, BoundingBox box) {
+        if(box.isEmpty()) {
+            return true;
+        }
+
+        int[] minVoxel = new int[3];
+        int[] maxVoxel = new int[3];
+        for(int axis = 0; axis < 3; axis++) {
+            float tolerance = voxelSize[axis] * BOX_TOLERANCE;
+            float min = box.getMin(axis) - tolerance;
+            float max = box.getMax(axis) + tolerance;
+            if(min < gridMin[axis] || max > gridMax[axis]) {
+                return false;
+            }
+            minVoxel[axis] = getVoxel(min, axis);
+            maxVoxel[axis] = getVoxel(max, axis);
+        }
+
+        for(int z = minVoxel[2]; z <= maxVoxel[2]; z++) {
+            for(int y = minVoxel[1]; y <= maxVoxel[1]; y++) {
+                for(int x = minVoxel[0]; x <= maxVoxel[0]; x++) {
+                    setVoxel(voxels, x, y, z);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the voxel of a position on one axis, positions outside the grid get the voxel at the border
+     * @param position the position on the axis
+     * @param axis the axis (0 = x, 1 = y, 2 = z)
+     * @return the voxel on the axis (0 to the resolution of the axis - 1)
+     */
+    int getVoxel(float position, int axis) {
+        int voxel = (int) ((position - gridMin[axis]) / voxelSize[axis]);
+        return Math.max(0, Math.min(resolution[axis] - 1, voxel));
+    }
+
+    void setVoxel(long[] voxels, int x, int y, int z) {
+        int index = (z * resolution[1] + y) * resolution[0] + x;
+        voxels[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+    }
+
+    private static boolean isSameBox(BoundingBox box, BoundingBox other) {
+        for(int axis = 0; axis < 3; axis++) {
+            if(box.getMin(axis) != other.getMin(axis) || box.getMax(axis) != other.getMax(axis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameColor(MyColor color, MyColor other) {
+        return color.getR() == other.getR() && color.getG() == other.getG() && color.getB() == other.getB();
+    }
+
+    /**
+     * Returns the settings that change the color of a pixel, renders with other settings can not reuse the pixels
+     */
+    private static String getSamplingKey(RenderSettings settings) {
+        if(!settings.isSuperSampling()) {
+            return "single";
+        }
+        return settings.getSamplerType() + "_" + settings.getSamplesPerPixel() + "_" + settings.getSamplerSeed()
+                + (settings.isAdaptiveSampling() ? "_adaptive_" + settings.getAdaptiveThreshold() : "");
+    }
+}
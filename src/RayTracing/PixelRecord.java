@@ -0,0 +1,168 @@
+package RayTracing;
+
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
+import SceneData.DataTypes.Ray;
+import SceneData.Surface.Surface;
+
+import java.util.Arrays;
+
+/**
+ * Dependencies of the pixel that is traced at the moment (see {@link PixelDependencies}), filled by the rays of the pixel.<br>
+ * Every render thread has its own record, which is cleared before every pixel and stored in the dependencies after it.
+ */
+class PixelRecord {
+    private final PixelDependencies dependencies;
+    private final long[] lightBits;
+    private Surface[] surfaces = new Surface[4];
+    private int surfaceCount;
+    private long lights;
+    private final long[] voxels;
+
+    //state of the 3D-DDA, reused for all rays
+    private final float[] gridMin;
+    private final float[] gridMax;
+    private final float[] voxelSize;
+    private final int[] resolution;
+    private final float[] origin = new float[3];
+    private final float[] direction = new float[3];
+    private final float[] inverseDirection = new float[3];
+    private final int[] cell = new int[3];
+    private final int[] step = new int[3];
+    private final float[] tNextBorder = new float[3];
+    private final float[] tDelta = new float[3];
+
+    PixelRecord(PixelDependencies dependencies) {
+        this.dependencies = dependencies;
+        this.lightBits = dependencies.getLightBits();
+        this.gridMin = dependencies.getGridMin();
+        this.gridMax = dependencies.getGridMax();
+        this.voxelSize = dependencies.getVoxelSize();
+        this.resolution = dependencies.getResolution();
+        this.voxels = new long[dependencies.getVoxelWords()];
+    }
+
+    /**
+     * Forgets the dependencies of the last pixel
+     */
+    void clear() {
+        surfaceCount = 0;
+        lights = 0;
+        Arrays.fill(voxels, 0);
+    }
+
+    /**
+     * Adds a surface that was hit by a ray of the pixel (its color, material or normal is used)
+     * @param surface the hit surface
+     */
+    void addSurface(Surface surface) {
+        for(int i = 0; i < surfaceCount; i++) {
+            if(surfaces[i] == surface) {
+                return;
+            }
+        }
+        if(surfaceCount == surfaces.length) {
+            surfaces = Arrays.copyOf(surfaces, surfaceCount * 2);
+        }
+        surfaces[surfaceCount++] = surface;
+    }
+
+    /**
+     * Adds a light that illuminates a hit of the pixel
+     * @param lightIndex the position of the light in the lights of the scene
+     */
+    void addLight(int lightIndex) {
+        lights |= lightBits[lightIndex];
+    }
+
+    /**
+     * Marks the voxels the ray passes from its origin until tEnd (3D-DDA like in the {@link RayTracing.Acceleration.UniformGrid UniformGrid}),
+     * the parts of the ray outside the grid are skipped, there is nothing to hit
+     * @param ray the ray
+     * @param tEnd the distance along the ray after which nothing matters for the pixel (e.g. its closest hit or the light of a shadow ray)
+     */
+    void addRay(Ray ray, float tEnd) {
+        MyPoint rayOrigin = ray.getOrigin();
+        MyVector rayDirection = ray.getDirection();
+        origin[0] = rayOrigin.getX();
+        origin[1] = rayOrigin.getY();
+        origin[2] = rayOrigin.getZ();
+        direction[0] = rayDirection.getX();
+        direction[1] = rayDirection.getY();
+        direction[2] = rayDirection.getZ();
+        inverseDirection[0] = ray.getInverseDirectionX();
+        inverseDirection[1] = ray.getInverseDirectionY();
+        inverseDirection[2] = ray.getInverseDirectionZ();
+
+        //clip the ray to the grid
+        float tEnter = 0.0f;
+        float tExit = tEnd;
+        for(int axis = 0; axis < 3; axis++) {
+            float t0 = (gridMin[axis] - origin[axis]) * inverseDirection[axis];
+            float t1 = (gridMax[axis] - origin[axis]) * inverseDirection[axis];
+            if(t0 > t1) {
+                float temp = t0;
+                t0 = t1;
+                t1 = temp;
+            }
+            if(t0 > tEnter) tEnter = t0;
+            if(t1 < tExit) tExit = t1;
+        }
+        if(tEnter > tExit) {
+            return;
+        }
+
+        for(int axis = 0; axis < 3; axis++) {
+            cell[axis] = dependencies.getVoxel(origin[axis] + direction[axis] * tEnter, axis);
+            if(direction[axis] > 0) {
+                step[axis] = 1;
+                tDelta[axis] = voxelSize[axis] / direction[axis];
+                tNextBorder[axis] = (gridMin[axis] + (cell[axis] + 1) * voxelSize[axis] - origin[axis]) / direction[axis];
+            } else if(direction[axis] < 0) {
+                step[axis] = -1;
+                tDelta[axis] = -voxelSize[axis] / direction[axis];
+                tNextBorder[axis] = (gridMin[axis] + cell[axis] * voxelSize[axis] - origin[axis]) / direction[axis];
+            } else {
+                step[axis] = 0;
+                tDelta[axis] = Float.MAX_VALUE;
+                tNextBorder[axis] = Float.MAX_VALUE;
+            }
+        }
+
+        while(true) {
+            dependencies.setVoxel(voxels, cell[0], cell[1], cell[2]);
+
+            int axis = tNextBorder[0] < tNextBorder[1]
+                    ? (tNextBorder[0] < tNextBorder[2] ? 0 : 2)
+                    : (tNextBorder[1] < tNextBorder[2] ? 1 : 2);
+            if(tNextBorder[axis] > tExit) {
+                return;
+            }
+            cell[axis] += step[axis];
+            if(cell[axis] < 0 || cell[axis] >= resolution[axis]) {
+                return;
+            }
+            tNextBorder[axis] += tDelta[axis];
+        }
+    }
+
+    /**
+     * Returns the ids of the hit surfaces
+     * @return the id of every surface that was hit by a ray of the pixel
+     */
+    int[] getSurfaceIds() {
+        int[] ids = new int[surfaceCount];
+        for(int i = 0; i < surfaceCount; i++) {
+            ids[i] = dependencies.getSurfaceId(surfaces[i]);
+        }
+        return ids;
+    }
+
+    long getLights() {
+        return lights;
+    }
+
+    long[] getVoxels() {
+        return voxels;
+    }
+}
@@ -1,109 +1,666 @@
 package RayTracing;
 
+import RayTracing.Acceleration.Accelerator;
+import RayTracing.Sampling.Sampler;
+import RayTracing.Sampling.SamplerFactory;
 import SceneData.DataTypes.*;
 import SceneData.DataTypes.MyVector;
+import SceneData.Camera;
 import SceneData.Light.*;
 import SceneData.Scene;
 import SceneData.Surface.Material.Phong;
 import SceneData.Surface.Surface;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
-public class RayTracer {
-
-    private static final float EPSILON = 0.01f;
+public class RayTracer implements AutoCloseable {
+    /** the primary rays of a block of PACKET_SIZE x PACKET_SIZE pixels are traced as one packet */
+    private static final int PACKET_SIZE = 4;
+    /** channel of the image with the number of rays of every pixel, if adaptive sampling is used */
+    public static final int SAMPLE_COUNT_CHANNEL = FrameBuffer.RGB_CHANNELS;
+    /** every pixel starts with this many rays (with the grid: the center and the four corners), before adaptive sampling decides if more are needed */
+    private static final int MIN_ADAPTIVE_SAMPLES = 5;
+    /** number of rays adaptive sampling adds to a pixel at once, before the error is checked again */
+    private static final int ADAPTIVE_BATCH_SIZE = 4;
+    /** the cost of a tile is estimated with COST_SAMPLES x COST_SAMPLES rays, if there is no previous frame */
+    private static final int COST_SAMPLES = 2;
+    /** the coarse pass of a progressive render traces one ray per block of COARSE_BLOCK_SIZE x COARSE_BLOCK_SIZE pixels */
+    private static final int COARSE_BLOCK_SIZE = 8;
+
+    /** render threads of this ray tracer by thread count, kept between renders (e.g. the frames of an animation) until the ray tracer is closed */
+    private final Map<Integer, ForkJoinPool> renderPools = new HashMap<>();
+    private final TileCostHistory tileCostHistory = new TileCostHistory();
+    private final AcceleratorHistory acceleratorHistory = new AcceleratorHistory();
 
     /**
-     * Ray traces the scene and returns a 2D array of {@link MyColor}
+     * Ray traces the scene with the default settings and returns the image as a {@link FrameBuffer}
      * @param scene the scene to ray trace
      * @param superSampling whether to use super sampling or not
-     * @return a 2D array of {@link MyColor}
+     * @return the rendered image (top row first)
+     */
+    public FrameBuffer rayTrace(Scene scene, boolean superSampling) {
+        return rayTrace(scene, new RenderSettings(superSampling));
+    }
+
+    /**
+     * Ray traces the scene and returns the image as a {@link FrameBuffer}.<br>
+     * The image is split into tiles, which the threads of an own {@link ForkJoinPool} take one after the other,
+     * so a thread that finished a cheap tile simply takes the next one and the common pool is not used.
+     * By default the most expensive tiles are taken first (see {@link ETileOrder}), so the render does not wait for an expensive tile at the end.
+     * @param scene the scene to ray trace
+     * @param settings the settings of this render (super sampling, packet tracing, tile size, thread count)
+     * @return the rendered image (top row first)
+     */
+    public FrameBuffer rayTrace(Scene scene, RenderSettings settings) {
+        return render(scene, settings, null);
+    }
+
+    /**
+     * Ray traces the scene like {@link #rayTrace(Scene, RenderSettings)} and records what every pixel depends on (see {@link PixelDependencies}).<br>
+     * If the dependencies hold the last render of the scene, only the pixels the changes since then affect are traced again,
+     * all other pixels are the same as in the last image. The image is the same as the one of a render of the whole changed scene.
+     * Recording the dependencies has a cost, see {@link PixelDependencies} for when this is faster than {@link #rayTrace(Scene, RenderSettings)}.
+     * @param scene the scene to ray trace, e.g. the scene of the last render with a moved sphere
+     * @param settings the settings of this render
+     * @param dependencies the dependencies of the last render of the scene (empty for the first render), updated for the next render
+     * @return the rendered image (top row first)
+     */
+    public FrameBuffer rayTrace(Scene scene, RenderSettings settings, PixelDependencies dependencies) {
+        return render(scene, settings, dependencies);
+    }
+
+    /**
+     * Ray traces all pixels of the scene, or only the pixels affected by changes if the dependencies allow it
+     * @param dependencies the dependencies to record and to find the affected pixels with, null to render without them
      */
-    public MyColor[][] rayTrace(Scene scene, boolean superSampling) {
-        int width = scene.getCamera().getWidth();
-        int height = scene.getCamera().getHeight();
-
-        MyColor[][] image = new MyColor[height][width];
-        final int maxRayCount = 25;
-        final int sqrtMaxRayCount = (int) Math.sqrt(maxRayCount);
-        final int maxBounces = scene.getCamera().getMaxBounces();
-        final List<Surface> surfaces = scene.getSurfaces();
+    private FrameBuffer render(Scene scene, RenderSettings settings, PixelDependencies dependencies) {
+        final Camera camera = scene.getCamera();
+        final boolean adaptiveSampling = settings.isSuperSampling() && settings.isAdaptiveSampling();
+        final boolean incremental = dependencies != null && dependencies.prepare(scene, settings);
+        //with adaptive sampling the number of rays of every pixel is saved in an extra channel
+        final FrameBuffer image = incremental
+                ? dependencies.getImage()
+                : adaptiveSampling
+                ? new FrameBuffer(camera.getWidth(), camera.getHeight(), FrameBuffer.RGB_CHANNELS + 1)
+                : new FrameBuffer(camera.getWidth(), camera.getHeight());
         final List<Light> lights = scene.getLights();
         final MyColor backgroundColor = scene.getBackgroundColor();
 
-        if(superSampling) {
-            System.out.println("Super sampling enabled");
+        //build the top level acceleration structure over all surfaces (meshes keep their own hierarchy over their triangles),
+        //or refit the one of the previous frame of the scene
+        final Accelerator accelerator = acceleratorHistory.create(scene);
+
+        //the positions of the rays in the pixels with super sampling
+        final Sampler sampler = SamplerFactory.create(settings.getSamplerType(), settings.getSamplesPerPixel(), settings.getSamplerSeed());
+        printSuperSampling(settings);
+
+        final List<Tile> tiles = Tile.createTiles(camera.getWidth(), camera.getHeight(), settings.getTileSize());
+        final int[] tileOrder = getTileOrder(scene, tiles, settings, accelerator, backgroundColor, lights);
+
+        //render the tiles and measure how long every tile takes
+        final long[] tileCosts = new long[tiles.size()];
+        runOnRenderPool(settings.getThreadCount(), tiles.size(), (i) -> {
+            int tileIndex = tileOrder[i];
+            long startTime = System.nanoTime();
+            renderTile(tiles.get(tileIndex), camera, image, settings, sampler, accelerator, backgroundColor, lights, dependencies);
+            tileCosts[tileIndex] = System.nanoTime() - startTime;
+        });
+        if(dependencies != null) {
+            dependencies.finish(scene, image);
+        }
+        if(incremental) {
+            int pixelCount = camera.getWidth() * camera.getHeight();
+            System.out.printf("Incremental render: %d of %d pixels traced again (%.1f%%)%n",
+                    dependencies.getAffectedPixelCount(), pixelCount, 100.0f * dependencies.getAffectedPixelCount() / pixelCount);
+        } else {
+            //the times are the estimate for the next frame of the scene (e.g. in an animation)
+            tileCostHistory.setCosts(scene, settings.getTileSize(), tileCosts);
+        }
+
+        if(adaptiveSampling) {
+            System.out.printf("Adaptive sampling: %.2f rays per pixel on average%n", getAverageSampleCount(image));
         }
+        return image;
+    }
 
-        //go through each pixel in the image, get the pixel color and save it in the image array
-        IntStream.range(0, height).parallel().forEach((y) -> {
-            for(int x = 0; x < width; x++) {
-                MyColor color = new MyColor();
-                //if super sampling is enabled, cast 25 rays per pixel and take the average of the colors
-                if(superSampling) {
-                    //cast 25 rays per pixel
-                    for (int rayCount = 0; rayCount < maxRayCount; rayCount++) {
-                        Ray ray = scene.getCamera().getRayToPixel(x, y, rayCount, sqrtMaxRayCount);
-                        color.add(trace(ray, 0, maxBounces, surfaces, backgroundColor, lights));
+    /**
+     * Ray traces the scene progressively and reports the intermediate images to the listener.<br>
+     * The first pass is coarse (one ray per block of COARSE_BLOCK_SIZE x COARSE_BLOCK_SIZE pixels), so a first image is there after a fraction of the time.
+     * Then the full image is rendered, with super sampling one more ray per pixel in every pass, so the image gets smoother pass by pass.
+     * The final image is the same as the one of {@link #rayTrace(Scene, RenderSettings)}.
+     * Adaptive sampling is not supported, every pass adds one ray to every pixel.
+     * @param scene the scene to ray trace
+     * @param settings the settings of this render, the progress interval is the minimum time between two intermediate images
+     * @param listener receives the image after the passes
+     * @return the final image (top row first)
+     * @throws IllegalArgumentException if the settings use adaptive sampling
+     */
+    public FrameBuffer rayTrace(Scene scene, RenderSettings settings, RenderListener listener) {
+        if(settings.isSuperSampling() && settings.isAdaptiveSampling()) {
+            throw new IllegalArgumentException("Adaptive sampling is not supported by the progressive render");
+        }
+        final Camera camera = scene.getCamera();
+        final FrameBuffer image = new FrameBuffer(camera.getWidth(), camera.getHeight());
+        final List<Light> lights = scene.getLights();
+        final MyColor backgroundColor = scene.getBackgroundColor();
+        final Accelerator accelerator = acceleratorHistory.create(scene);
+
+        final Sampler sampler = SamplerFactory.create(settings.getSamplerType(), settings.getSamplesPerPixel(), settings.getSamplerSeed());
+        printSuperSampling(settings);
+
+        final List<Tile> tiles = Tile.createTiles(camera.getWidth(), camera.getHeight(), settings.getTileSize());
+        final int sampleCount = sampler.getSampleCount();
+        final int passCount = settings.isSuperSampling() ? 1 + sampleCount : 2;
+
+        //coarse pass, the times of the tiles are the estimated costs for the full passes
+        final long[] tileCosts = new long[tiles.size()];
+        runOnRenderPool(settings.getThreadCount(), tiles.size(), (i) -> {
+            long startTime = System.nanoTime();
+            renderTileCoarse(tiles.get(i), camera, image, accelerator, backgroundColor, lights);
+            tileCosts[i] = System.nanoTime() - startTime;
+        });
+        listener.onProgress(image.copy(), 1, passCount);
+        long lastProgressTime = System.nanoTime();
+
+        final int[] tileOrder = settings.getTileOrder() == ETileOrder.MORTON ? IntStream.range(0, tiles.size()).toArray() : sortByCost(tileCosts);
+
+        if(!settings.isSuperSampling()) {
+            runOnRenderPool(settings.getThreadCount(), tiles.size(), (i) -> renderTile(tiles.get(tileOrder[i]), camera, image, settings, sampler, accelerator, backgroundColor, lights, null));
+            listener.onProgress(image.copy(), passCount, passCount);
+            return image;
+        }
+
+        //sum of the samples so far, one more sample per pixel in every pass
+        final FrameBuffer sampleSum = new FrameBuffer(camera.getWidth(), camera.getHeight());
+        for(int sample = 0; sample < sampleCount; sample++) {
+            final int sampleIndex = sample;
+            runOnRenderPool(settings.getThreadCount(), tiles.size(), (i) -> addTileSample(tiles.get(tileOrder[i]), sampleIndex, camera, sampler, sampleSum, accelerator, backgroundColor, lights));
+
+            boolean lastPass = sample == sampleCount - 1;
+            if(lastPass || (System.nanoTime() - lastProgressTime) / 1_000_000 >= settings.getProgressInterval()) {
+                //the average of the samples so far
+                FrameBuffer intermediateImage = lastPass ? sampleSum : sampleSum.copy();
+                intermediateImage.scale(1.0f / (sample + 1));
+                listener.onProgress(lastPass ? intermediateImage.copy() : intermediateImage, sample + 2, passCount);
+                lastProgressTime = System.nanoTime();
+            }
+        }
+        return sampleSum;
+    }
+
+    /**
+     * Prints the number of rays per pixel and the sampler if super sampling is enabled
+     */
+    private static void printSuperSampling(RenderSettings settings) {
+        if(settings.isSuperSampling()) {
+            System.out.println((settings.isAdaptiveSampling() ? "Adaptive super sampling enabled (up to " : "Super sampling enabled (")
+                    + settings.getSamplesPerPixel() + " rays per pixel, " + settings.getSamplerType() + " sampler)");
+        }
+    }
+
+    /**
+     * Coarse pass of a progressive render: traces one ray through the center of every block of COARSE_BLOCK_SIZE x COARSE_BLOCK_SIZE pixels
+     * of the tile and fills the whole block with its color
+     */
+    private void renderTileCoarse(Tile tile, Camera camera, FrameBuffer image, Accelerator accelerator, MyColor backgroundColor, List<Light> lights) {
+        int height = camera.getHeight();
+        int tileEndX = tile.getX() + tile.getWidth();
+        int tileEndY = tile.getY() + tile.getHeight();
+
+        for(int startY = tile.getY(); startY < tileEndY; startY += COARSE_BLOCK_SIZE) {
+            int endY = Math.min(tileEndY, startY + COARSE_BLOCK_SIZE);
+            for(int startX = tile.getX(); startX < tileEndX; startX += COARSE_BLOCK_SIZE) {
+                int endX = Math.min(tileEndX, startX + COARSE_BLOCK_SIZE);
+
+                Ray ray = camera.getRayToPixel((startX + endX) / 2, (startY + endY) / 2);
+                MyColor color = trace(ray, 0, camera.getMaxBounces(), accelerator, backgroundColor, lights, null);
+                for(int y = startY; y < endY; y++) {
+                    for(int x = startX; x < endX; x++) {
+                        image.setColor(x, (height-1)-y, color);
                     }
-                    //take the average of the 25 colors
-                    color = color.scale(1.0f / maxRayCount);
-                } else {
-                    Ray ray = scene.getCamera().getRayToPixel(x, y, 0, 1);
-                    color = trace(ray, 0, maxBounces, surfaces, backgroundColor, lights);
                 }
-                image[(height-1)-y][x] = color;
             }
+        }
+    }
+
+    /**
+     * Traces one of the super sampling rays of every pixel of the tile and adds its color to the sum of the pixel
+     * @param sampleIndex the index of the ray in the pixel (0 to sampleCount - 1 of the sampler)
+     */
+    private void addTileSample(Tile tile, int sampleIndex, Camera camera, Sampler sampler, FrameBuffer sampleSum, Accelerator accelerator, MyColor backgroundColor, List<Light> lights) {
+        int height = camera.getHeight();
+        float[] offset = new float[2];
+
+        for(int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            for(int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                sampler.getOffset(x, y, sampleIndex, offset);
+                Ray ray = camera.getRayToPixel(x, y, offset[0], offset[1], sampler.getTime(x, y, sampleIndex));
+                MyColor color = trace(ray, 0, camera.getMaxBounces(), accelerator, backgroundColor, lights, null);
+                int imageY = (height-1)-y;
+                sampleSum.setColor(x, imageY, sampleSum.getR(x, imageY) + color.getR(), sampleSum.getG(x, imageY) + color.getG(), sampleSum.getB(x, imageY) + color.getB());
+            }
+        }
+    }
+
+    /**
+     * Returns the order the tiles are rendered in: morton order, or the most expensive tiles first (longest processing time first).<br>
+     * The costs are the render times of the tiles in the previous frame of the scene, or estimated with a few rays per tile.
+     * @return the indices of the tiles in the order they are rendered
+     */
+    private int[] getTileOrder(Scene scene, List<Tile> tiles, RenderSettings settings, Accelerator accelerator, MyColor backgroundColor, List<Light> lights) {
+        if(settings.getTileOrder() == ETileOrder.MORTON) {
+            return IntStream.range(0, tiles.size()).toArray();
+        }
+
+        long[] tileCosts = tileCostHistory.getCosts(scene, settings.getTileSize(), tiles.size());
+        if(tileCosts == null) {
+            tileCosts = estimateTileCosts(tiles, scene.getCamera(), settings, accelerator, backgroundColor, lights);
+        }
+
+        return sortByCost(tileCosts);
+    }
+
+    /**
+     * Sorts the tiles by their cost, the most expensive first. Tiles with the same cost stay in morton order.
+     * @param tileCosts the cost of every tile
+     * @return the indices of the tiles, most expensive first
+     */
+    private static int[] sortByCost(long[] tileCosts) {
+        return IntStream.range(0, tileCosts.length).boxed()
+                .sorted(Comparator.comparingLong((Integer tileIndex) -> tileCosts[tileIndex]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Estimates the render time of every tile by tracing COST_SAMPLES x COST_SAMPLES evenly spread rays through the tile
+     * (with shadows, reflections and refractions) and scaling their time to the pixels of the tile
+     * @return the estimated render time of every tile in nanoseconds
+     */
+    private long[] estimateTileCosts(List<Tile> tiles, Camera camera, RenderSettings settings, Accelerator accelerator, MyColor backgroundColor, List<Light> lights) {
+        long[] tileCosts = new long[tiles.size()];
+        int maxBounces = camera.getMaxBounces();
+
+        runOnRenderPool(settings.getThreadCount(), tiles.size(), (i) -> {
+            Tile tile = tiles.get(i);
+            long startTime = System.nanoTime();
+            for(int sampleY = 0; sampleY < COST_SAMPLES; sampleY++) {
+                for(int sampleX = 0; sampleX < COST_SAMPLES; sampleX++) {
+                    int x = tile.getX() + (2 * sampleX + 1) * tile.getWidth() / (2 * COST_SAMPLES);
+                    int y = tile.getY() + (2 * sampleY + 1) * tile.getHeight() / (2 * COST_SAMPLES);
+                    trace(camera.getRayToPixel(x, y), 0, maxBounces, accelerator, backgroundColor, lights, null);
+                }
+            }
+            tileCosts[i] = (System.nanoTime() - startTime) * tile.getPixelCount() / (COST_SAMPLES * COST_SAMPLES);
         });
+        return tileCosts;
+    }
 
-        return image;
+    /**
+     * Runs the task for the indices 0 to taskCount - 1 on the render pool.
+     * One worker per thread is started, every worker takes the next index until all are done, so the indices are started in order.<br>
+     * If a task fails (e.g. a texture that can not be decoded when it is used the first time), the other workers stop after their current index
+     * and the exception of the task is thrown, as it was thrown in the render thread, once all workers have stopped.
+     * @param threadCount the number of render threads
+     * @param taskCount the number of indices
+     * @param task the work for one index
+     */
+    private void runOnRenderPool(int threadCount, int taskCount, IntConsumer task) {
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            try {
+                for(int i = nextIndex.getAndIncrement(); i < taskCount; i = nextIndex.getAndIncrement()) {
+                    task.accept(i);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                nextIndex.set(taskCount);
+            }
+        };
+
+        ForkJoinPool pool = getRenderPool(threadCount);
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for(int i = 0; i < Math.min(threadCount, taskCount); i++) {
+            workers.add(pool.submit(worker));
+        }
+        for(ForkJoinTask<?> runningWorker : workers) {
+            runningWorker.join();
+        }
+        if(failure.get() != null) {
+            throw failure.get();
+        }
     }
 
+    /**
+     * Returns the render pool with the given number of threads.<br>
+     * Every thread count has its own pool, which is never replaced while the ray tracer is open,
+     * so renders with different thread counts at the same time (e.g. frames of an animation and another render) do not stop each other's pools.
+     * @param threadCount the number of render threads
+     * @return the pool the tiles are rendered on
+     */
+    private synchronized ForkJoinPool getRenderPool(int threadCount) {
+        return renderPools.computeIfAbsent(threadCount, ForkJoinPool::new);
+    }
+
+    /**
+     * Stops the render threads of all thread counts, must only be called when no render is running (e.g. when the program ends).
+     * A render after closing starts new threads.
+     */
+    @Override
+    public synchronized void close() {
+        renderPools.values().forEach(ForkJoinPool::shutdown);
+        renderPools.clear();
+    }
+
+    /**
+     * Renders the pixels of one tile and saves their colors in the image
+     * @param tile the tile to render
+     * @param camera the camera of the scene
+     * @param image the frame buffer the colors are saved in
+     * @param settings the settings of the render
+     * @param sampler the positions of the rays in the pixels with super sampling
+     * @param accelerator the acceleration structure over the surfaces in the scene
+     * @param backgroundColor the background color of the scene
+     * @param lights the lights in the scene
+     * @param dependencies the dependencies of the pixels, only the affected pixels are rendered and their dependencies recorded (null to render all pixels)
+     */
+    private void renderTile(Tile tile, Camera camera, FrameBuffer image, RenderSettings settings, Sampler sampler, Accelerator accelerator, MyColor backgroundColor, List<Light> lights, PixelDependencies dependencies) {
+        int height = camera.getHeight();
+        int maxBounces = camera.getMaxBounces();
+
+        if(!settings.isSuperSampling() && settings.isPacketTracing()) {
+            renderTilePackets(tile, camera, image, accelerator, backgroundColor, lights, dependencies);
+            return;
+        }
+        if(settings.isSuperSampling() && settings.isAdaptiveSampling()) {
+            renderTileAdaptive(tile, camera, image, settings, sampler, accelerator, backgroundColor, lights, dependencies);
+            return;
+        }
+
+        final int sampleCount = sampler.getSampleCount();
+        final float[] offset = new float[2];
+        final PixelRecord record = dependencies != null ? dependencies.createRecord() : null;
+        for(int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            for(int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                if(record != null) {
+                    if(!dependencies.isAffected(x, y)) {
+                        continue;
+                    }
+                    record.clear();
+                }
+
+                MyColor color;
+                //if super sampling is enabled, cast the rays of the sampler through the pixel and take the average of the colors
+                if(settings.isSuperSampling()) {
+                    color = new MyColor();
+                    for (int sampleIndex = 0; sampleIndex < sampleCount; sampleIndex++) {
+                        sampler.getOffset(x, y, sampleIndex, offset);
+                        Ray ray = camera.getRayToPixel(x, y, offset[0], offset[1], sampler.getTime(x, y, sampleIndex));
+                        color.add(trace(ray, 0, maxBounces, accelerator, backgroundColor, lights, record));
+                    }
+                    //take the average of the colors
+                    color.scaleInPlace(1.0f / sampleCount);
+                } else {
+                    Ray ray = camera.getRayToPixel(x, y);
+                    color = trace(ray, 0, maxBounces, accelerator, backgroundColor, lights, record);
+                }
+                image.setColor(x, (height-1)-y, color);
+
+                if(record != null) {
+                    dependencies.store(x, y, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the pixels of one tile with adaptive super sampling: every pixel starts with MIN_ADAPTIVE_SAMPLES rays of the sampler (in its spread order),
+     * further rays are added in batches while the standard error of the color is above the threshold of the settings (at most samplesPerPixel rays).
+     * So flat pixels (e.g. the background) only need a few rays and the rays are spent on edges, shadows and textures.
+     * The number of rays of every pixel is saved in the SAMPLE_COUNT_CHANNEL of the image.
+     * @param tile the tile to render
+     * @param camera the camera of the scene
+     * @param image the frame buffer the colors are saved in (with the extra channel)
+     * @param settings the settings of the render (threshold)
+     * @param sampler the positions of the rays in the pixels (the maximum number of rays)
+     * @param accelerator the acceleration structure over the surfaces in the scene
+     * @param backgroundColor the background color of the scene
+     * @param lights the lights in the scene
+     * @param dependencies the dependencies of the pixels, only the affected pixels are rendered and their dependencies recorded (null to render all pixels)
+     */
+    private void renderTileAdaptive(Tile tile, Camera camera, FrameBuffer image, RenderSettings settings, Sampler sampler, Accelerator accelerator, MyColor backgroundColor, List<Light> lights, PixelDependencies dependencies) {
+        int height = camera.getHeight();
+        int maxBounces = camera.getMaxBounces();
+        int maxSamples = sampler.getSampleCount();
+        float[] offset = new float[2];
+        float[] squareSum = new float[FrameBuffer.RGB_CHANNELS];
+        PixelRecord record = dependencies != null ? dependencies.createRecord() : null;
+
+        for(int y = tile.getY(); y < tile.getY() + tile.getHeight(); y++) {
+            for(int x = tile.getX(); x < tile.getX() + tile.getWidth(); x++) {
+                if(record != null) {
+                    if(!dependencies.isAffected(x, y)) {
+                        continue;
+                    }
+                    record.clear();
+                }
+
+                MyColor sum = new MyColor();
+                Arrays.fill(squareSum, 0.0f);
+                int rayCount = 0;
+                int targetCount = Math.min(MIN_ADAPTIVE_SAMPLES, maxSamples);
+
+                while(true) {
+                    for(; rayCount < targetCount; rayCount++) {
+                        int sampleIndex = sampler.getSpreadIndex(rayCount);
+                        sampler.getOffset(x, y, sampleIndex, offset);
+                        Ray ray = camera.getRayToPixel(x, y, offset[0], offset[1], sampler.getTime(x, y, sampleIndex));
+                        MyColor color = trace(ray, 0, maxBounces, accelerator, backgroundColor, lights, record);
+                        sum.add(color);
+                        squareSum[0] += color.getR() * color.getR();
+                        squareSum[1] += color.getG() * color.getG();
+                        squareSum[2] += color.getB() * color.getB();
+                    }
+                    if(rayCount >= maxSamples || getStandardError(sum, squareSum, rayCount) <= settings.getAdaptiveThreshold()) {
+                        break;
+                    }
+                    targetCount = Math.min(maxSamples, rayCount + ADAPTIVE_BATCH_SIZE);
+                }
+
+                //take the average of the colors
+                sum.scaleInPlace(1.0f / rayCount);
+                image.setColor(x, (height-1)-y, sum);
+                image.setChannel(x, (height-1)-y, SAMPLE_COUNT_CHANNEL, rayCount);
+
+                if(record != null) {
+                    dependencies.store(x, y, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the standard error of the average color of a pixel (the largest of the three channels)
+     * @param sum the sum of the colors of the rays
+     * @param squareSum the sum of the squared colors of the rays (r, g, b)
+     * @param rayCount the number of rays (at least 2)
+     * @return the standard error of the average
+     */
+    private static float getStandardError(MyColor sum, float[] squareSum, int rayCount) {
+        float[] channelSums = {sum.getR(), sum.getG(), sum.getB()};
+        float maxVariance = 0.0f;
+        for(int channel = 0; channel < FrameBuffer.RGB_CHANNELS; channel++) {
+            float variance = (squareSum[channel] - channelSums[channel] * channelSums[channel] / rayCount) / (rayCount - 1);
+            maxVariance = Math.max(maxVariance, variance);
+        }
+        return (float) Math.sqrt(maxVariance / rayCount);
+    }
+
+    /**
+     * Returns the average number of rays per pixel of an image rendered with adaptive sampling
+     * @param image the image with the SAMPLE_COUNT_CHANNEL
+     * @return the average number of rays
+     */
+    private static float getAverageSampleCount(FrameBuffer image) {
+        double sampleCount = 0;
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                sampleCount += image.getChannel(x, y, SAMPLE_COUNT_CHANNEL);
+            }
+        }
+        return (float) (sampleCount / (image.getWidth() * image.getHeight()));
+    }
+
+    /**
+     * Traces the primary rays of every block of PACKET_SIZE x PACKET_SIZE pixels of the tile as one {@link RayPacket}, so neighbouring rays
+     * share the node tests of the acceleration structures. Only the closest hits are found together, the shading
+     * (shadow rays, reflections and refractions) is done ray by ray.
+     * @param tile the tile to render
+     * @param camera the camera of the scene
+     * @param image the frame buffer the colors are saved in
+     * @param accelerator the acceleration structure over the surfaces in the scene
+     * @param backgroundColor the background color of the scene
+     * @param lights the lights in the scene
+     * @param dependencies the dependencies of the pixels, only the blocks with an affected pixel are rendered and their dependencies recorded (null to render all pixels)
+     */
+    private void renderTilePackets(Tile tile, Camera camera, FrameBuffer image, Accelerator accelerator, MyColor backgroundColor, List<Light> lights, PixelDependencies dependencies) {
+        int height = camera.getHeight();
+        int maxBounces = camera.getMaxBounces();
+        int tileEndX = tile.getX() + tile.getWidth();
+        int tileEndY = tile.getY() + tile.getHeight();
+        Ray[] rays = new Ray[PACKET_SIZE * PACKET_SIZE];
+        Hit[] hits = new Hit[PACKET_SIZE * PACKET_SIZE];
+        PixelRecord record = dependencies != null ? dependencies.createRecord() : null;
+
+        //directions of the primary rays through the centers of all pixels of the tile
+        float[] directions = new float[3 * tile.getPixelCount()];
+        camera.getPrimaryRayDirections(tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(), 0.5f, 0.5f, directions);
+
+        for(int startY = tile.getY(); startY < tileEndY; startY += PACKET_SIZE) {
+            int endY = Math.min(tileEndY, startY + PACKET_SIZE);
+
+            for(int startX = tile.getX(); startX < tileEndX; startX += PACKET_SIZE) {
+                int endX = Math.min(tileEndX, startX + PACKET_SIZE);
+                if(record != null && !isBlockAffected(dependencies, startX, startY, endX, endY)) {
+                    continue;
+                }
+
+                //create the rays of the block and find their closest hits together
+                int rayCount = 0;
+                for(int y = startY; y < endY; y++) {
+                    for(int x = startX; x < endX; x++) {
+                        int direction = 3 * ((y - tile.getY()) * tile.getWidth() + (x - tile.getX()));
+                        rays[rayCount] = new Ray(camera.getRayOrigin(), new MyVector(directions[direction], directions[direction + 1], directions[direction + 2]));
+                        hits[rayCount] = new Hit(rays[rayCount].getTMax());
+                        rayCount++;
+                    }
+                }
+                accelerator.intersect(new RayPacket(rays, rayCount), hits);
+
+                //shade every ray on its own
+                rayCount = 0;
+                for(int y = startY; y < endY; y++) {
+                    for(int x = startX; x < endX; x++) {
+                        if(record != null) {
+                            record.clear();
+                            record.addRay(rays[rayCount], hits[rayCount].getT());
+                        }
+                        image.setColor(x, (height-1)-y, shade(rays[rayCount], hits[rayCount], 0, maxBounces, accelerator, backgroundColor, lights, record));
+                        if(record != null) {
+                            dependencies.store(x, y, record);
+                        }
+                        rayCount++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if any pixel of a block is affected by the changes since the last render (the whole block is traced again then)
+     * @return true if a pixel between (startX, startY) and (endX, endY) (exclusive) is affected
+     */
+    private static boolean isBlockAffected(PixelDependencies dependencies, int startX, int startY, int endX, int endY) {
+        for(int y = startY; y < endY; y++) {
+            for(int x = startX; x < endX; x++) {
+                if(dependencies.isAffected(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
     /**
      * Traces a ray through the scene and returns the color of the pixel
      * @param ray the ray to trace
      * @param depth the current depth of the ray
      * @param maxBounces the maximum number of bounces
-     * @param surfaceList the surfaces in the scene, as a list
+     * @param accelerator the acceleration structure over the surfaces in the scene
      * @param backgroundColor the background color of the scene, as a {@link MyColor}
      * @param lightList the lights in the scene, as a list
+     * @param record the dependencies of the pixel the ray belongs to, null if they are not recorded
      * @return the color of the pixel the ray hits, as a {@link MyColor}
      */
-    private MyColor trace(Ray ray, int depth, int maxBounces, List<Surface> surfaceList, MyColor backgroundColor, List<Light> lightList){
-        MyColor color = new MyColor();
-        Surface closestSurface = null;
-        Intersection closestIntersection = new Intersection(Float.MAX_VALUE);
+    private MyColor trace(Ray ray, int depth, int maxBounces, Accelerator accelerator, MyColor backgroundColor, List<Light> lightList, PixelRecord record){
+        //find the closest surface with the acceleration structure (distance tests only)
+        Hit hit = new Hit(ray.getTMax());
+        accelerator.intersect(ray, hit);
+        if(record != null) {
+            record.addRay(ray, hit.getT());
+        }
+        return shade(ray, hit, depth, maxBounces, accelerator, backgroundColor, lightList, record);
+    }
 
-        //go through each surface in the scene and safe the closest intersection & surface
-        for(int i = 0; i < surfaceList.size(); i++){
-            Surface currSurface = surfaceList.get(i);
-            Intersection currIntersection = currSurface.intersect(ray, EPSILON);
+    /**
+     * Calculates the color of the closest hit of a ray, with the illumination of the lights and the reflected and refracted rays
+     * @param ray the traced ray
+     * @param hit the closest hit of the ray, found by the acceleration structure
+     * @param depth the current depth of the ray
+     * @param maxBounces the maximum number of bounces
+     * @param accelerator the acceleration structure over the surfaces in the scene
+     * @param backgroundColor the background color of the scene, as a {@link MyColor}
+     * @param lightList the lights in the scene, as a list
+     * @param record the dependencies of the pixel the ray belongs to, null if they are not recorded
+     * @return the color of the hit, or the background color if nothing was hit
+     */
+    private MyColor shade(Ray ray, Hit hit, int depth, int maxBounces, Accelerator accelerator, MyColor backgroundColor, List<Light> lightList, PixelRecord record){
+        Surface closestSurface = null;
+        Intersection closestIntersection = null;
 
-            if(currIntersection.hasIntersection() && currIntersection.getT() < closestIntersection.getT()){
-                closestSurface = currSurface;
-                closestIntersection = currIntersection;
-            }
+        //the normal, point and color are only calculated for the closest surface
+        if(hit.hasHit()){
+            closestSurface = hit.getSurface();
+            closestIntersection = closestSurface.getIntersection(ray, hit);
         }
 
-        MyColor reflectedColor = new MyColor();
-        MyColor refractedColor = new MyColor();
-        float reflectance = 0.0f;
-        float transmittance = 0.0f;
-
         //if there is an intersection with a surface, calculate the color of the pixel
-        if(closestSurface != null && closestIntersection.hasIntersection() && closestIntersection.getT() != Float.MAX_VALUE){
+        if(closestSurface != null && closestIntersection.hasIntersection()){
+            MyColor color = new MyColor();
+            if(record != null) {
+                record.addSurface(closestSurface);
+            }
+
             //go through every light and calculate the illumination
             for(int i = 0; i < lightList.size(); i++){
                 Light light = lightList.get(i);
+                if(record != null) {
+                    record.addLight(i);
+                }
 
                 //check if there is a surface between the intersection and the light
-                boolean hasShadow = checkIfShadow(light, closestIntersection, surfaceList);
+                boolean hasShadow = checkIfShadow(light, closestIntersection, ray.getTime(), accelerator, record);
 
                 //if there is no surface between, calculate the illumination and add the color to the pixel color
                 if(!hasShadow){
-                    color.add(illuminate(closestSurface, ray, closestIntersection, light));
+                    illuminate(closestSurface, ray, closestIntersection, light, color);
                 }
             }
 
@@ -111,34 +668,29 @@ public class RayTracer {
             if(depth > maxBounces){
                 return color;
             }
-            //calculate the reflected color and scale it with the reflectance
-            reflectance = closestSurface.getMaterial().getReflactance();
+            //scale the color with the reflectance and transmittance
+            float reflectance = closestSurface.getMaterial().getReflactance();
+            float transmittance = closestSurface.getMaterial().getTransmittance();
+            color.scaleInPlace(1.0f - reflectance - transmittance);
+
+            //calculate the reflected color, scale it with the reflectance and add it
             if(reflectance > 0.0f){
                 //get the reflected ray and trace it
                 Ray reflectedRay = getReflectedRay(closestIntersection, ray);
-                reflectedColor = trace(reflectedRay, depth+1, maxBounces, surfaceList, backgroundColor, lightList);
-                reflectedColor = reflectedColor.scale(reflectance);
+                color.addScaled(trace(reflectedRay, depth+1, maxBounces, accelerator, backgroundColor, lightList, record), reflectance);
             }
 
-            //calculate the refracted color and scale it with the transmittance
-            transmittance = closestSurface.getMaterial().getTransmittance();
+            //calculate the refracted color, scale it with the transmittance and add it
             if(transmittance > 0.0f){
                 //get the refracted ray and trace it
                 Ray refractedRay = getRefractedRay(closestIntersection, ray, closestSurface.getMaterial().getRefractionIndex());
-                refractedColor = trace(refractedRay, depth+1, maxBounces, surfaceList, backgroundColor, lightList);
-                refractedColor = refractedColor.scale(transmittance);
+                color.addScaled(trace(refractedRay, depth+1, maxBounces, accelerator, backgroundColor, lightList, record), transmittance);
             }
-
-            //scale the color with the reflectance and transmittance and add the reflected and refracted color
-            MyColor finalColor = MyColor.scale(color, (1.0f - reflectance - transmittance));
-            finalColor.add(reflectedColor);
-            finalColor.add(refractedColor);
-            return finalColor;
+            return color;
         }
         //if there is no intersection, return the background color
         else{
-            color = backgroundColor;
-            return color;
+            return backgroundColor;
         }
     }
 
@@ -151,11 +703,11 @@ public class RayTracer {
      */
     private Ray getRefractedRay(Intersection closestIntersection, Ray ray, float refractionIndex){
         MyVector normal = closestIntersection.getNormal();
-        MyVector direction = ray.getDirection().getNormalized();
+        MyVector direction = ray.getDirection();
 
-        MyVector refractedDirection = refract(direction, normal, refractionIndex);
+        MyVector refractedDirection = refract(direction.getX(), direction.getY(), direction.getZ(), normal, refractionIndex);
 
-        return new Ray(closestIntersection.getPoint(), refractedDirection);
+        return new Ray(closestIntersection.getPoint(), refractedDirection, ray.getTime());
     }
 
     /**
@@ -166,35 +718,50 @@ public class RayTracer {
      */
     private Ray getReflectedRay(Intersection closestIntersection, Ray ray) {
         MyVector normal = closestIntersection.getNormal();
-        MyVector direction = ray.getDirection().getNormalized();
+        MyVector direction = ray.getDirection();
 
-        MyVector reflectedDirection = reflect(direction.invert(), normal);
+        //the incoming vector is the inverted direction of the ray (pointing away from the surface)
+        MyVector reflectedDirection = reflect(-direction.getX(), -direction.getY(), -direction.getZ(), normal.getX(), normal.getY(), normal.getZ());
 
-        return new Ray(closestIntersection.getPoint(), reflectedDirection);
+        return new Ray(closestIntersection.getPoint(), reflectedDirection, ray.getTime());
     }
 
     /**
      * Creates the perfect reflection of a vector pointing away from a surface
-     * @param incoming the incoming vector, but pointing away from the surface (invert vectors that point towards the surface)
-     * @param normal the normal vector
-     * @return the perfect reflection of the light vector, as a Vector
+     * @param incomingX the x value of the incoming vector, but pointing away from the surface (invert vectors that point towards the surface)
+     * @param incomingY the y value of the incoming vector
+     * @param incomingZ the z value of the incoming vector
+     * @param normalX the x value of the normal vector
+     * @param normalY the y value of the normal vector
+     * @param normalZ the z value of the normal vector
+     * @return the perfect reflection of the light vector, as a normalized Vector
      */
-    private MyVector reflect(MyVector incoming, MyVector normal){
+    private MyVector reflect(float incomingX, float incomingY, float incomingZ, float normalX, float normalY, float normalZ){
         // r = 2(i dot n)n - i
-        return MyVector.subtract(normal.scale(2 * MyVector.dotProduct(incoming, normal)),incoming).getNormalized();
+        float scale = 2 * (incomingX * normalX + incomingY * normalY + incomingZ * normalZ);
+        float reflectedX = normalX * scale - incomingX;
+        float reflectedY = normalY * scale - incomingY;
+        float reflectedZ = normalZ * scale - incomingZ;
+        float length = (float) Math.sqrt(reflectedX * reflectedX + reflectedY * reflectedY + reflectedZ * reflectedZ);
+        return new MyVector(reflectedX / length, reflectedY / length, reflectedZ / length);
     }
 
     /**
      * Calculates the refraction of an incoming vector
      * used the code from https://www.scratchapixel.com/lessons/3d-basic-rendering/introduction-to-shading/reflection-refraction-fresnel.html
      *
-     * @param incoming the incoming vector, pointing towards the surface
+     * @param incomingX the x value of the incoming vector, pointing towards the surface
+     * @param incomingY the y value of the incoming vector
+     * @param incomingZ the z value of the incoming vector
      * @param normal the normal of the intersection point
      * @param refractionIndex the refraction index of the surface
      * @return the refracted vector
      */
-    private MyVector refract(MyVector incoming, MyVector normal, float refractionIndex){
-        float NdotI = MyVector.dotProduct(normal, incoming);
+    private MyVector refract(float incomingX, float incomingY, float incomingZ, MyVector normal, float refractionIndex){
+        float normalX = normal.getX();
+        float normalY = normal.getY();
+        float normalZ = normal.getZ();
+        float NdotI = normalX * incomingX + normalY * incomingY + normalZ * incomingZ;
         float ior_before = 1.0f;
         float ior_after = refractionIndex;
 
@@ -202,7 +769,9 @@ public class RayTracer {
             NdotI = -NdotI;
         }
         else{ //inside the surface
-            normal = normal.invert();
+            normalX = -normalX;
+            normalY = -normalY;
+            normalZ = -normalZ;
             float temp = ior_before;
             ior_before = ior_after;
             ior_after = temp;
@@ -212,22 +781,29 @@ public class RayTracer {
         float k = 1 - eta * eta * (1 - NdotI * NdotI);
 
         if(k < 0.0f){ //total internal reflection -> return the reflected Vector
-            return reflect(incoming.invert(), normal);
+            return reflect(-incomingX, -incomingY, -incomingZ, normalX, normalY, normalZ);
         }
         else{
-            return MyVector.add(incoming.scale(eta), normal.scale(eta * NdotI - (float) Math.sqrt(k))).getNormalized();
+            //eta * i + (eta * NdotI - sqrt(k)) * n
+            float normalScale = eta * NdotI - (float) Math.sqrt(k);
+            float refractedX = incomingX * eta + normalX * normalScale;
+            float refractedY = incomingY * eta + normalY * normalScale;
+            float refractedZ = incomingZ * eta + normalZ * normalScale;
+            float length = (float) Math.sqrt(refractedX * refractedX + refractedY * refractedY + refractedZ * refractedZ);
+            return new MyVector(refractedX / length, refractedY / length, refractedZ / length);
         }
     }
 
     /**
-     * Calculates the phong shading and illumination of the pixel
+     * Calculates the phong shading and illumination of the pixel and adds it to the given color.<br>
+     * All vectors are kept in primitive values, so no objects are created per light.
      * @param surface the surface the pixel is on
      * @param ray the ray that hits the surface
      * @param intersection the intersection of the ray and the surface
      * @param light the light that illuminates the surface
-     * @return the color of the pixel, as a {@link MyColor}
+     * @param color the color of the pixel, the illumination is added to it
      */
-    private MyColor illuminate(Surface surface, Ray ray, Intersection intersection, Light light){
+    private void illuminate(Surface surface, Ray ray, Intersection intersection, Light light, MyColor color){
         MyPoint intersectionPoint = intersection.getPoint();
         MyColor intersectionColor = intersection.getColor();
         Phong phong = surface.getMaterial().getPhong();
@@ -236,94 +812,133 @@ public class RayTracer {
 
         if(light instanceof AmbientLight){
             //Ka * ambientLightColor * surfaceColor
-            return MyColor.multiply(lightColor, intersectionColor.scale(phong.getKa()));
+            float ka = phong.getKa();
+            color.add(
+                    lightColor.getR() * (intersectionColor.getR() * ka),
+                    lightColor.getG() * (intersectionColor.getG() * ka),
+                    lightColor.getB() * (intersectionColor.getB() * ka)
+            );
+            return;
         }
 
-        MyVector lightDirection = new MyVector();
+        float lightX = 0.0f;
+        float lightY = 0.0f;
+        float lightZ = 0.0f;
 
         //if light is spotlight, calculate light intensity
         if(light instanceof SpotLight){
-            lightDirection = MyPoint.subtract(light.getPosition(), intersectionPoint).getNormalized();
+            MyVector lightDirection = MyPoint.subtract(light.getPosition(), intersectionPoint).getNormalized();
             intensity = ((SpotLight) light).getLightIntensity(lightDirection);
             if(intensity == 0.0f){
-                return new MyColor();
+                return;
             }
+            lightX = lightDirection.getX();
+            lightY = lightDirection.getY();
+            lightZ = lightDirection.getZ();
         }
 
         //calculate the light direction for point lights and parallel lights
         if(light instanceof PointLight){
-            lightDirection = MyPoint.subtract(light.getPosition(), intersectionPoint).getNormalized();
+            MyPoint lightPosition = light.getPosition();
+            lightX = lightPosition.getX() - intersectionPoint.getX();
+            lightY = lightPosition.getY() - intersectionPoint.getY();
+            lightZ = lightPosition.getZ() - intersectionPoint.getZ();
+            float length = (float) Math.sqrt(lightX * lightX + lightY * lightY + lightZ * lightZ);
+            lightX /= length;
+            lightY /= length;
+            lightZ /= length;
         }
         else if(light instanceof ParallelLight){
-            lightDirection = light.getDirection().invert().getNormalized();
+            MyVector direction = light.getDirection();
+            float length = direction.getLength();
+            lightX = -direction.getX() / length;
+            lightY = -direction.getY() / length;
+            lightZ = -direction.getZ() / length;
         }
 
         //difuse Light
         MyVector normal = intersection.getNormal();
+        float normalX = normal.getX();
+        float normalY = normal.getY();
+        float normalZ = normal.getZ();
         //lambertian = L dot N
-        float lambertian = Math.max(MyVector.dotProduct(lightDirection, normal), 0.0f);
+        float lightDotNormal = lightX * normalX + lightY * normalY + lightZ * normalZ;
+        float lambertian = Math.max(lightDotNormal, 0.0f);
 
         //specular light
         float specular = 0.0f;
         if(lambertian > 0.0f){
             //R = 2(N dot L)N - L
-            MyVector reflect = reflect(lightDirection, normal);
+            float scale = 2 * lightDotNormal;
+            float reflectX = normalX * scale - lightX;
+            float reflectY = normalY * scale - lightY;
+            float reflectZ = normalZ * scale - lightZ;
+            float reflectLength = (float) Math.sqrt(reflectX * reflectX + reflectY * reflectY + reflectZ * reflectZ);
             //V = -Ray
-            MyVector view = ray.getDirection().invert().getNormalized();
+            MyVector rayDirection = ray.getDirection();
 
             //R dot V
-            float specularAngle = Math.max(MyVector.dotProduct(reflect, view), 0.0f);
+            float reflectDotView = (reflectX / reflectLength) * -rayDirection.getX()
+                    + (reflectY / reflectLength) * -rayDirection.getY()
+                    + (reflectZ / reflectLength) * -rayDirection.getZ();
+            float specularAngle = Math.max(reflectDotView, 0.0f);
             //(R dot V) ^ exponent
             specular = (float) Math.pow(specularAngle, phong.getExponent());
         }
 
-        //Kd * lambertian * diffuseLightColor * surfaceColor
-        MyColor diffuseColor = MyColor.multiply(lightColor, intersectionColor.scale(phong.getKd() * lambertian));
-        //Ks * specular * specularLightColor
-        MyColor specularColor = lightColor.scale(phong.getKs() * specular);
-
         //(Kd * lambertian * diffuseLightColor * surfaceColor) + (Ks * specular * specularLightColor)
-        return MyColor.plus(diffuseColor, specularColor).scale(intensity);
+        float diffuse = phong.getKd() * lambertian;
+        float specularScale = phong.getKs() * specular;
+        color.add(
+                (lightColor.getR() * (intersectionColor.getR() * diffuse) + lightColor.getR() * specularScale) * intensity,
+                (lightColor.getG() * (intersectionColor.getG() * diffuse) + lightColor.getG() * specularScale) * intensity,
+                (lightColor.getB() * (intersectionColor.getB() * diffuse) + lightColor.getB() * specularScale) * intensity
+        );
     }
 
-
-
     /**
      * Checks if there is a surface between the intersection and the light
      * @param light the light that illuminates the surface
      * @param intersection the intersection of the ray and the surface
-     * @param surfaceList the surfaces in the scene, as a list
+     * @param time the time of the ray, moving surfaces cast their shadow at their position at this time
+     * @param accelerator the acceleration structure over the surfaces in the scene
+     * @param record the dependencies of the pixel the intersection belongs to, null if they are not recorded
      * @return true if there is a surface between, false if not
      */
-    private boolean checkIfShadow(Light light, Intersection intersection, List<Surface> surfaceList) {
+    private boolean checkIfShadow(Light light, Intersection intersection, float time, Accelerator accelerator, PixelRecord record) {
         if(light instanceof AmbientLight){
             return false;
         }
 
-        Ray shadowRay = new Ray(intersection.getPoint());
+        MyVector lightDirection;
+        float lightDistance;
 
-        //calculate the light direction for point lights and parallel lights
+        //calculate the light direction and the distance to the light for point lights and parallel lights
         if(light instanceof PointLight){
-            shadowRay.setDirection(MyPoint.subtract(light.getPosition(), intersection.getPoint()).getNormalized());
+            MyPoint lightPosition = light.getPosition();
+            MyPoint point = intersection.getPoint();
+            float toLightX = lightPosition.getX() - point.getX();
+            float toLightY = lightPosition.getY() - point.getY();
+            float toLightZ = lightPosition.getZ() - point.getZ();
+            lightDistance = (float) Math.sqrt(toLightX * toLightX + toLightY * toLightY + toLightZ * toLightZ);
+            lightDirection = new MyVector(toLightX / lightDistance, toLightY / lightDistance, toLightZ / lightDistance);
         }
         else if(light instanceof ParallelLight){
-            shadowRay.setDirection(light.getDirection().invert().getNormalized());
+            MyVector direction = light.getDirection();
+            float length = direction.getLength();
+            lightDistance = Float.MAX_VALUE;
+            lightDirection = new MyVector(-direction.getX() / length, -direction.getY() / length, -direction.getZ() / length);
         }
-
-        //go through each surface in the scene and check if there is a intersection
-        for(int i = 0; i < surfaceList.size(); i++){
-            Surface surface = surfaceList.get(i);
-            Intersection shadowIntersection = surface.intersect(shadowRay, EPSILON);
-            if(shadowIntersection.hasIntersection()){
-                if(light instanceof ParallelLight
-                    || shadowIntersection.getT() < MyPoint.subtract(light.getPosition(), intersection.getPoint()).getLength()){
-                    return true;
-                }
-
-                return false;
-            }
+        else {
+            //only point lights and parallel lights cast shadows
+            return false;
         }
 
-        return false;
+        //there is a shadow if any surface lies between the intersection and the light
+        Ray shadowRay = new Ray(intersection.getPoint(), lightDirection, Ray.DEFAULT_T_MIN, lightDistance, time);
+        if(record != null) {
+            record.addRay(shadowRay, lightDistance);
+        }
+        return accelerator.occluded(shadowRay);
     }
 }
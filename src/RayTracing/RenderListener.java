@@ -0,0 +1,19 @@
+package RayTracing;
+
+import SceneData.DataTypes.FrameBuffer;
+
+/**
+ * Receives the intermediate images of a progressive render (see {@link RayTracer#rayTrace(SceneData.Scene, RenderSettings, RenderListener)}),
+ * e.g. to save a preview of the image while it is still being refined
+ */
+@FunctionalInterface
+public interface RenderListener {
+    /**
+     * Called after a pass of the render, at most once per progress interval of the {@link RenderSettings} (the last pass is always reported).
+     * Called on the thread that started the render, the render continues when the method returns.
+     * @param image a copy of the current image, it can be kept
+     * @param pass the number of the finished pass (starting at 1)
+     * @param passCount the number of passes of the render
+     */
+    void onProgress(FrameBuffer image, int pass, int passCount);
+}
@@ -0,0 +1,214 @@
+package RayTracing;
+
+import RayTracing.Sampling.ESamplerType;
+
+/**
+ * Settings of one render: super sampling (sampler, rays per pixel, fixed or adaptive), packet tracing, the size and order of the tiles and the number of render threads.<br>
+ * Every render gets its own settings, so e.g. a preview can use fewer threads than the final image.
+ */
+public class RenderSettings {
+    /** width and height of the tiles in pixels, a multiple of the packet size (4) */
+    public static final int DEFAULT_TILE_SIZE = 16;
+    /** the number of rays of a pixel with super sampling by default (5x5 grid) */
+    public static final int DEFAULT_SAMPLES_PER_PIXEL = 25;
+    /** adaptive sampling stops when the standard error of the pixel color is below half a step of an 8 bit color channel */
+    public static final float DEFAULT_ADAPTIVE_THRESHOLD = 0.5f / 255;
+
+    private boolean superSampling;
+    private ESamplerType samplerType;
+    private int samplesPerPixel;
+    private int samplerSeed;
+    private boolean adaptiveSampling;
+    private float adaptiveThreshold;
+    private boolean packetTracing;
+    private int tileSize;
+    private ETileOrder tileOrder;
+    private int threadCount;
+    private long progressInterval;
+
+    /**
+     * creates the default settings: no super sampling, packet tracing, 16x16 tiles (most expensive first) and one thread per core
+     */
+    public RenderSettings() {
+        this(false);
+    }
+
+    /**
+     * creates the default settings with or without super sampling
+     * @param superSampling whether to cast several rays per pixel (25 by default)
+     */
+    public RenderSettings(boolean superSampling) {
+        this(superSampling, true, DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param superSampling whether to cast several rays per pixel (25 by default)
+     * @param packetTracing whether the primary rays are traced in packets of 4x4 pixels (ignored with super sampling)
+     * @param tileSize the width and height of the tiles in pixels
+     * @param threadCount the number of threads that render the tiles
+     */
+    public RenderSettings(boolean superSampling, boolean packetTracing, int tileSize, int threadCount) {
+        setSuperSampling(superSampling);
+        setSamplerType(ESamplerType.GRID);
+        setSamplesPerPixel(DEFAULT_SAMPLES_PER_PIXEL);
+        setSamplerSeed(0);
+        setAdaptiveSampling(false);
+        setAdaptiveThreshold(DEFAULT_ADAPTIVE_THRESHOLD);
+        setPacketTracing(packetTracing);
+        setTileSize(tileSize);
+        setTileOrder(ETileOrder.LONGEST_FIRST);
+        setThreadCount(threadCount);
+        setProgressInterval(0);
+    }
+
+    public boolean isSuperSampling() {
+        return superSampling;
+    }
+
+    public void setSuperSampling(boolean superSampling) {
+        this.superSampling = superSampling;
+    }
+
+    /**
+     * Returns where the rays of a pixel pass through the pixel with super sampling
+     * @return the type of the sampler
+     */
+    public ESamplerType getSamplerType() {
+        return samplerType;
+    }
+
+    public void setSamplerType(ESamplerType samplerType) {
+        this.samplerType = samplerType;
+    }
+
+    /**
+     * Returns the number of rays per pixel with super sampling (the maximum with adaptive sampling)
+     * @return the number of rays
+     */
+    public int getSamplesPerPixel() {
+        return samplesPerPixel;
+    }
+
+    /**
+     * Sets the number of rays per pixel with super sampling, the grid samplers use a grid of exactly samplesPerPixel cells (e.g. 4 x 3 for 12).
+     * Every count covers the whole pixel, except the default 25 with the GRID sampler: it keeps the positions of the original ray tracer
+     * in the lower left quarter of the pixel, so the images stay the same
+     * @param samplesPerPixel the number of rays, at least 1
+     */
+    public void setSamplesPerPixel(int samplesPerPixel) {
+        if(samplesPerPixel < 1) {
+            throw new IllegalArgumentException("At least one sample per pixel is needed, got " + samplesPerPixel);
+        }
+        this.samplesPerPixel = samplesPerPixel;
+    }
+
+    /**
+     * Returns the seed of the random sample positions, the same seed gives the same image
+     * @return the seed
+     */
+    public int getSamplerSeed() {
+        return samplerSeed;
+    }
+
+    public void setSamplerSeed(int samplerSeed) {
+        this.samplerSeed = samplerSeed;
+    }
+
+    /**
+     * Checks if super sampling is adaptive: every pixel starts with a few rays and only pixels whose colors differ
+     * (edges, shadows, textures) get more rays, up to samplesPerPixel. Not used by progressive renders.
+     * @return true if the number of rays per pixel is adaptive, false if every pixel gets samplesPerPixel rays
+     */
+    public boolean isAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    public void setAdaptiveSampling(boolean adaptiveSampling) {
+        this.adaptiveSampling = adaptiveSampling;
+    }
+
+    /**
+     * Returns the standard error of the pixel color (per channel, between 0 and 1), below which adaptive sampling stops adding rays to a pixel
+     * @return the threshold
+     */
+    public float getAdaptiveThreshold() {
+        return adaptiveThreshold;
+    }
+
+    public void setAdaptiveThreshold(float adaptiveThreshold) {
+        if(!(adaptiveThreshold >= 0)) {
+            throw new IllegalArgumentException("The adaptive threshold can't be negative, got " + adaptiveThreshold);
+        }
+        this.adaptiveThreshold = adaptiveThreshold;
+    }
+
+    public boolean isPacketTracing() {
+        return packetTracing;
+    }
+
+    public void setPacketTracing(boolean packetTracing) {
+        this.packetTracing = packetTracing;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        if(tileSize < 1) {
+            throw new IllegalArgumentException("The tile size has to be at least 1, got " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    public ETileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+    public void setTileOrder(ETileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        if(threadCount < 1) {
+            throw new IllegalArgumentException("At least one render thread is needed, got " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Returns the minimum time between two intermediate images of a progressive render
+     * @return the interval in milliseconds (0 = after every pass)
+     */
+    public long getProgressInterval() {
+        return progressInterval;
+    }
+
+    public void setProgressInterval(long progressInterval) {
+        if(progressInterval < 0) {
+            throw new IllegalArgumentException("The progress interval can't be negative, got " + progressInterval);
+        }
+        this.progressInterval = progressInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderSettings {" +
+                "\n\tsuperSampling: " + superSampling +
+                ",\n\tsamplerType: " + samplerType +
+                ",\n\tsamplesPerPixel: " + samplesPerPixel +
+                ",\n\tsamplerSeed: " + samplerSeed +
+                ",\n\tadaptiveSampling: " + adaptiveSampling +
+                ",\n\tadaptiveThreshold: " + adaptiveThreshold +
+                ",\n\tpacketTracing: " + packetTracing +
+                ",\n\ttileSize: " + tileSize +
+                ",\n\ttileOrder: " + tileOrder +
+                ",\n\tthreadCount: " + threadCount +
+                ",\n\tprogressInterval: " + progressInterval +
+                "\n\t}";
+    }
+}
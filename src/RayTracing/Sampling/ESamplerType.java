@@ -0,0 +1,23 @@
+package RayTracing.Sampling;
+
+/**
+ * The positions of the rays in a pixel with super sampling
+ */
+public enum ESamplerType {
+    /**
+     * regular grid, the same positions in every pixel (the positions of the original ray tracer)
+     */
+    GRID,
+    /**
+     * one random position in every cell of a grid over the pixel, no regular patterns but still evenly spread
+     */
+    STRATIFIED,
+    /**
+     * Halton sequence (bases 2 and 3), shifted randomly per pixel, every number of samples is spread evenly
+     */
+    HALTON,
+    /**
+     * Sobol sequence, scrambled per pixel, every power of two samples is perfectly stratified
+     */
+    SOBOL
+}
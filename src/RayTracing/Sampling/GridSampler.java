@@ -0,0 +1,111 @@
+package RayTracing.Sampling;
+
+import java.util.Arrays;
+
+/**
+ * Regular grid of gridWidth x gridHeight samples with gridWidth * gridHeight = sampleCount, the same positions in every pixel.<br>
+ * The grid is as square as the sample count allows (5 x 5 for 25 samples, 4 x 3 for 12, 7 x 1 for 7), so every row and column of the grid has samples.
+ * The samples are at the centers of the cells, (i + 0.5) / gridWidth and (j + 0.5) / gridHeight, so they cover the whole pixel.
+ * Only the 25 samples of the original ray tracer keep its positions (i + 1) / (2 * gridWidth) and (j + 1) / (2 * gridHeight), from 0.1 to 0.5 in the lower left
+ * quarter of the pixel, so the images with the default settings stay the same as before the samplers.<br>
+ * A prime sample count gives a single row of samples (all at y = 0.5), the {@link StratifiedSampler} covers every row and column for any count.
+ * The times are the centers of sampleCount strata of the shutter interval.
+ */
+public class GridSampler implements Sampler {
+    /** the sample count of the original ray tracer, its samples keep their positions */
+    static final int LEGACY_SAMPLE_COUNT = 25;
+
+    private final int sampleCount;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final boolean legacyPositions;
+    private final int[] spreadOrder;
+
+    /**
+     * @param sampleCount the number of samples per pixel
+     */
+    public GridSampler(int sampleCount) {
+        this.sampleCount = sampleCount;
+        this.gridHeight = getGridHeight(sampleCount);
+        this.gridWidth = sampleCount / gridHeight;
+        this.legacyPositions = sampleCount == LEGACY_SAMPLE_COUNT;
+        this.spreadOrder = createSpreadOrder(gridWidth, gridHeight);
+    }
+
+    @Override
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public void getOffset(int pixelX, int pixelY, int sampleIndex, float[] offset) {
+        int column = sampleIndex % gridWidth;
+        int row = sampleIndex / gridWidth;
+        if(legacyPositions) {
+            offset[0] = (column + 1) / (2.0f * gridWidth);
+            offset[1] = (row + 1) / (2.0f * gridHeight);
+        } else {
+            offset[0] = (column + 0.5f) / gridWidth;
+            offset[1] = (row + 0.5f) / gridHeight;
+        }
+    }
+
+    @Override
+    public float getTime(int pixelX, int pixelY, int sampleIndex) {
+        return PixelHash.stratifiedTime(pixelX, pixelY, 0, sampleIndex, sampleCount, false);
+    }
+
+    @Override
+    public int getSpreadIndex(int i) {
+        return spreadOrder[i];
+    }
+
+    /**
+     * Returns the number of rows of a grid with exactly sampleCount cells that is as square as possible (at least as wide as high),
+     * the number of cells per row is sampleCount / gridHeight
+     * @param sampleCount the number of samples per pixel
+     * @return the largest divisor of sampleCount that is not greater than sqrt(sampleCount)
+     */
+    static int getGridHeight(int sampleCount) {
+        int gridHeight = (int) Math.sqrt(sampleCount);
+        while(sampleCount % gridHeight != 0) {
+            gridHeight--;
+        }
+        return gridHeight;
+    }
+
+    /**
+     * Orders the cells of a grid: the center first, then always the cell that is the furthest from all previous cells,
+     * so the first cells are spread over the whole grid
+     * @param gridWidth the number of cells per row of the grid
+     * @param gridHeight the number of rows of the grid
+     * @return the indices of the cells (row by row) in the order they should be taken
+     */
+    static int[] createSpreadOrder(int gridWidth, int gridHeight) {
+        int cellCount = gridWidth * gridHeight;
+        int[] order = new int[cellCount];
+        //squared distance of every cell to the closest cell taken so far
+        int[] distances = new int[cellCount];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        int next = (gridHeight / 2) * gridWidth + gridWidth / 2;
+        for(int i = 0; i < cellCount; i++) {
+            order[i] = next;
+            distances[next] = -1;
+            int nextDistance = -1;
+            for(int candidate = 0; candidate < cellCount; candidate++) {
+                if(distances[candidate] < 0) {
+                    continue;
+                }
+                int dx = candidate % gridWidth - order[i] % gridWidth;
+                int dy = candidate / gridWidth - order[i] / gridWidth;
+                distances[candidate] = Math.min(distances[candidate], dx * dx + dy * dy);
+                if(distances[candidate] > nextDistance) {
+                    nextDistance = distances[candidate];
+                    next = candidate;
+                }
+            }
+        }
+        return order;
+    }
+}
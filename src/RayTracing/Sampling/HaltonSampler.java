@@ -0,0 +1,63 @@
+package RayTracing.Sampling;
+
+/**
+ * Halton sequence with the bases 2 (x), 3 (y) and 5 (time): every prefix of the sequence is spread evenly over the pixel,
+ * so any number of samples (and adaptive sampling) gets a good distribution.<br>
+ * The sequence is shifted by a random offset per pixel (Cranley-Patterson rotation), so neighbouring pixels don't use the same positions.
+ */
+public class HaltonSampler implements Sampler {
+    private final int sampleCount;
+    private final int seed;
+
+    /**
+     * @param sampleCount the number of samples per pixel
+     * @param seed the seed of the random shifts
+     */
+    public HaltonSampler(int sampleCount, int seed) {
+        this.sampleCount = sampleCount;
+        this.seed = seed;
+    }
+
+    @Override
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public void getOffset(int pixelX, int pixelY, int sampleIndex, float[] offset) {
+        offset[0] = shift(radicalInverse(sampleIndex, 2), PixelHash.random(pixelX, pixelY, seed, 0));
+        offset[1] = shift(radicalInverse(sampleIndex, 3), PixelHash.random(pixelX, pixelY, seed, 1));
+    }
+
+    @Override
+    public float getTime(int pixelX, int pixelY, int sampleIndex) {
+        return shift(radicalInverse(sampleIndex, 5), PixelHash.random(pixelX, pixelY, seed, 2));
+    }
+
+    /**
+     * Mirrors the digits of the index in the given base at the decimal point (e.g. base 2: 6 = 110 -> 0.011)
+     * @param index the index of the sample
+     * @param base the base of the dimension
+     * @return the value between 0 and 1
+     */
+    private static double radicalInverse(int index, int base) {
+        double inverseBase = 1.0 / base;
+        double factor = inverseBase;
+        double value = 0.0;
+        while(index > 0) {
+            value += (index % base) * factor;
+            index /= base;
+            factor *= inverseBase;
+        }
+        return value;
+    }
+
+    /** adds the shift and wraps the value around to stay between 0 and 1 (without 1) */
+    private static float shift(double value, float shift) {
+        value += shift;
+        if(value >= 1.0) {
+            value -= 1.0;
+        }
+        return Math.min((float) value, Math.nextDown(1.0f));
+    }
+}
@@ -0,0 +1,107 @@
+package RayTracing.Sampling;
+
+/**
+ * Random values of the samplers, calculated from the pixel, the seed and a dimension instead of a random generator with a state,
+ * so every pixel gets the same values no matter which thread renders it and when.
+ */
+final class PixelHash {
+    /** the random values of the times use the dimensions from here on, far above the dimensions of the positions */
+    static final int TIME_DIMENSION = 1 << 30;
+
+    private PixelHash() {
+    }
+
+    /**
+     * Returns 32 random bits for a pixel
+     * @param pixelX x-coordinate of the pixel
+     * @param pixelY y-coordinate of the pixel
+     * @param seed the seed of the sampler
+     * @param dimension the number of the value in the pixel (e.g. 2 * sampleIndex + axis)
+     * @return the random bits
+     */
+    static int hash(int pixelX, int pixelY, int seed, int dimension) {
+        int hash = mix(seed ^ 0x9E3779B9);
+        hash = mix(hash ^ pixelX);
+        hash = mix(hash ^ pixelY);
+        return mix(hash ^ dimension);
+    }
+
+    /**
+     * Returns a random float for a pixel
+     * @return the random value (between 0 and 1, without 1)
+     */
+    static float random(int pixelX, int pixelY, int seed, int dimension) {
+        return toUnitFloat(hash(pixelX, pixelY, seed, dimension));
+    }
+
+    /**
+     * Converts the upper 24 bits to a float between 0 and 1 (without 1)
+     * @param bits the bits to convert
+     * @return the value
+     */
+    static float toUnitFloat(int bits) {
+        return (bits >>> 8) * 0x1p-24f;
+    }
+
+    /**
+     * Returns the time of a sample stratified over the shutter interval: the interval is split into sampleCount strata,
+     * every sample of the pixel gets its own stratum, in a random order per pixel
+     * @param sampleIndex the index of the sample
+     * @param sampleCount the number of samples of the pixel
+     * @param jittered whether the time is random inside the stratum (otherwise its center)
+     * @return the time between 0 and 1
+     */
+    static float stratifiedTime(int pixelX, int pixelY, int seed, int sampleIndex, int sampleCount, boolean jittered) {
+        int stratum = permute(sampleIndex, sampleCount, hash(pixelX, pixelY, seed, TIME_DIMENSION));
+        float jitter = jittered ? random(pixelX, pixelY, seed, TIME_DIMENSION + 1 + sampleIndex) : 0.5f;
+        return (stratum + jitter) / sampleCount;
+    }
+
+    /**
+     * Random permutation of 0 to length - 1 without a table (Kensler, "Correlated Multi-Jittered Sampling", 2013):
+     * the index is hashed within the next power of two until it lies below length
+     * @param index the value to permute (0 to length - 1)
+     * @param length the number of values
+     * @param seed chooses the permutation
+     * @return the permuted value (0 to length - 1)
+     */
+    static int permute(int index, int length, int seed) {
+        int mask = length - 1;
+        mask |= mask >>> 1;
+        mask |= mask >>> 2;
+        mask |= mask >>> 4;
+        mask |= mask >>> 8;
+        mask |= mask >>> 16;
+        do {
+            index ^= seed;
+            index *= 0xE170893D;
+            index ^= seed >>> 16;
+            index ^= (index & mask) >>> 4;
+            index ^= seed >>> 8;
+            index *= 0x0929EB3F;
+            index ^= seed >>> 23;
+            index ^= (index & mask) >>> 1;
+            index *= 1 | seed >>> 27;
+            index *= 0x6935FA69;
+            index ^= (index & mask) >>> 11;
+            index *= 0x74DCB303;
+            index ^= (index & mask) >>> 2;
+            index *= 0x9E501CC3;
+            index ^= (index & mask) >>> 2;
+            index *= 0xC860A3DF;
+            index &= mask;
+            index ^= index >>> 5;
+        } while(index >= length);
+        return Integer.remainderUnsigned(index + seed, length);
+    }
+
+    /** finalizer of MurmurHash3, every input bit changes about half of the output bits */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
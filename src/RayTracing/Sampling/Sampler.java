@@ -0,0 +1,43 @@
+package RayTracing.Sampling;
+
+/**
+ * Chooses where the rays of a pixel pass through the pixel with super sampling, and at which time between shutter open and close (motion blur).<br>
+ * The position of a sample only depends on the pixel, the index of the sample and the seed, not on the order the pixels are rendered in,
+ * so tiled renders, renders with any number of threads or renders split over several machines produce exactly the same image.
+ */
+public interface Sampler {
+    /**
+     * Returns the number of samples (rays) per pixel
+     * @return the number of samples
+     */
+    int getSampleCount();
+
+    /**
+     * Returns the position of a sample inside the pixel
+     * @param pixelX x-coordinate of the pixel
+     * @param pixelY y-coordinate of the pixel
+     * @param sampleIndex the index of the sample (0 to sampleCount - 1)
+     * @param offset receives the offset of the sample from the corner of the pixel in x and y (between 0 and 1, 0.5 is the center)
+     */
+    void getOffset(int pixelX, int pixelY, int sampleIndex, float[] offset);
+
+    /**
+     * Returns the time of a sample between shutter open and close. The times of the samples of a pixel are spread over the whole shutter interval
+     * and every pixel gets them in another order, so the time of a sample does not depend on its position in the pixel.
+     * @param pixelX x-coordinate of the pixel
+     * @param pixelY y-coordinate of the pixel
+     * @param sampleIndex the index of the sample (0 to sampleCount - 1)
+     * @return the time of the sample (0 = shutter open, 1 = shutter close)
+     */
+    float getTime(int pixelX, int pixelY, int sampleIndex);
+
+    /**
+     * Returns the sample that is taken as the i-th ray of a pixel, if not all samples are taken (adaptive sampling).
+     * The first rays should be spread over the whole pixel. Low discrepancy sequences already are in their own order.
+     * @param i the number of the ray in the pixel
+     * @return the index of the sample
+     */
+    default int getSpreadIndex(int i) {
+        return i;
+    }
+}
@@ -0,0 +1,22 @@
+package RayTracing.Sampling;
+
+/**
+ * Creates the sampler of a render
+ */
+public class SamplerFactory {
+    /**
+     * Creates a sampler with the given number of samples per pixel
+     * @param type the sampler to create
+     * @param sampleCount the number of samples per pixel
+     * @param seed the seed of the random values of the samplers (the grid does not use it)
+     * @return the created sampler
+     */
+    public static Sampler create(ESamplerType type, int sampleCount, int seed) {
+        return switch (type) {
+            case STRATIFIED -> new StratifiedSampler(sampleCount, seed);
+            case HALTON -> new HaltonSampler(sampleCount, seed);
+            case SOBOL -> new SobolSampler(sampleCount, seed);
+            default -> new GridSampler(sampleCount);
+        };
+    }
+}
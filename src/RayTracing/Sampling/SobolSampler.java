@@ -0,0 +1,80 @@
+package RayTracing.Sampling;
+
+/**
+ * First three dimensions of the Sobol sequence (x, y and time): every block of 2^k samples (starting at a multiple of 2^k) has exactly one sample
+ * in every cell of all grids with 2^k cells (e.g. 4x4, 2x8, 16x1), so it converges even faster than Halton for power of two sample counts.<br>
+ * The bits are XORed with random bits per pixel (digital shift), which keeps this stratification but gives every pixel other positions.
+ */
+public class SobolSampler implements Sampler {
+    /** direction numbers of the third dimension (polynomial x^2 + x + 1, m1 = 1, m2 = 3) */
+    private static final int[] THIRD_DIMENSION_DIRECTIONS = createThirdDimensionDirections();
+
+    private final int sampleCount;
+    private final int seed;
+
+    /**
+     * @param sampleCount the number of samples per pixel
+     * @param seed the seed of the scrambling
+     */
+    public SobolSampler(int sampleCount, int seed) {
+        this.sampleCount = sampleCount;
+        this.seed = seed;
+    }
+
+    @Override
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public void getOffset(int pixelX, int pixelY, int sampleIndex, float[] offset) {
+        //the first dimension is the van der Corput sequence (the bits of the index mirrored)
+        offset[0] = PixelHash.toUnitFloat(Integer.reverse(sampleIndex) ^ PixelHash.hash(pixelX, pixelY, seed, 0));
+        offset[1] = PixelHash.toUnitFloat(sobolSecondDimension(sampleIndex) ^ PixelHash.hash(pixelX, pixelY, seed, 1));
+    }
+
+    @Override
+    public float getTime(int pixelX, int pixelY, int sampleIndex) {
+        int bits = 0;
+        for(int bit = 0; sampleIndex != 0; sampleIndex >>>= 1, bit++) {
+            if((sampleIndex & 1) != 0) {
+                bits ^= THIRD_DIMENSION_DIRECTIONS[bit];
+            }
+        }
+        return PixelHash.toUnitFloat(bits ^ PixelHash.hash(pixelX, pixelY, seed, 2));
+    }
+
+    /**
+     * Calculates the direction numbers of the third dimension with the recurrence of its polynomial:
+     * m(k) = 2 * m(k-1) XOR 4 * m(k-2) XOR m(k-2), the k-th direction is m(k) shifted to the highest bits
+     * @return the 32 direction numbers
+     */
+    private static int[] createThirdDimensionDirections() {
+        long[] m = new long[33];
+        m[1] = 1;
+        m[2] = 3;
+        int[] directions = new int[32];
+        for(int k = 1; k <= 32; k++) {
+            if(k > 2) {
+                m[k] = (2 * m[k - 1]) ^ (4 * m[k - 2]) ^ m[k - 2];
+            }
+            directions[k - 1] = (int) (m[k] << (32 - k));
+        }
+        return directions;
+    }
+
+    /**
+     * Returns the bits of the second dimension: the direction numbers of the polynomial x + 1 are XORed for every set bit of the index
+     * @param index the index of the sample
+     * @return the bits of the value (the highest bit is 1/2)
+     */
+    private static int sobolSecondDimension(int index) {
+        int bits = 0;
+        for(int direction = 1 << 31; index != 0; index >>>= 1, direction ^= direction >>> 1) {
+            if((index & 1) != 0) {
+                bits ^= direction;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,61 @@
+package RayTracing.Sampling;
+
+/**
+ * Stratified jittered sampling, correlated multi-jittered (Kensler, "Correlated Multi-Jittered Sampling", 2013):
+ * the pixel is split into gridWidth x gridHeight = sampleCount cells (the grid of the {@link GridSampler}) and every sample lies at a random position in its own cell.
+ * Inside the cells the samples are also spread like n-rooks: split into sampleCount columns or rows, every column and every row of the pixel has one sample,
+ * so the whole pixel is covered for every sample count, even if the grid is only one row (e.g. 7 samples).
+ * The samples are still spread evenly, but the random positions turn the regular aliasing patterns of the grid into fine noise.
+ * The times are stratified the same way: every sample gets a random time in its own part of the shutter interval.
+ */
+public class StratifiedSampler implements Sampler {
+    /** dimensions of the random permutations of the columns and rows of a pixel, below the dimensions of the jitter (2 * sampleIndex + axis) */
+    private static final int COLUMN_PERMUTATION_DIMENSION = -1;
+    private static final int ROW_PERMUTATION_DIMENSION = -2;
+
+    private final int sampleCount;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int seed;
+    private final int[] spreadOrder;
+
+    /**
+     * @param sampleCount the number of samples per pixel
+     * @param seed the seed of the random positions
+     */
+    public StratifiedSampler(int sampleCount, int seed) {
+        this.sampleCount = sampleCount;
+        this.gridHeight = GridSampler.getGridHeight(sampleCount);
+        this.gridWidth = sampleCount / gridHeight;
+        this.seed = seed;
+        this.spreadOrder = GridSampler.createSpreadOrder(gridWidth, gridHeight);
+    }
+
+    @Override
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public void getOffset(int pixelX, int pixelY, int sampleIndex, float[] offset) {
+        int column = sampleIndex % gridWidth;
+        int row = sampleIndex / gridWidth;
+        //the position inside the cell: all cells of a row use the same shuffled sub-columns, all cells of a column the same shuffled sub-rows
+        int subColumn = PixelHash.permute(row, gridHeight, PixelHash.hash(pixelX, pixelY, seed, ROW_PERMUTATION_DIMENSION));
+        int subRow = PixelHash.permute(column, gridWidth, PixelHash.hash(pixelX, pixelY, seed, COLUMN_PERMUTATION_DIMENSION));
+        float jitterX = PixelHash.random(pixelX, pixelY, seed, 2 * sampleIndex);
+        float jitterY = PixelHash.random(pixelX, pixelY, seed, 2 * sampleIndex + 1);
+        offset[0] = (column + (subColumn + jitterX) / gridHeight) / gridWidth;
+        offset[1] = (row + (subRow + jitterY) / gridWidth) / gridHeight;
+    }
+
+    @Override
+    public float getTime(int pixelX, int pixelY, int sampleIndex) {
+        return PixelHash.stratifiedTime(pixelX, pixelY, seed, sampleIndex, sampleCount, true);
+    }
+
+    @Override
+    public int getSpreadIndex(int i) {
+        return spreadOrder[i];
+    }
+}
@@ -0,0 +1,97 @@
+package RayTracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rectangle of pixels that is rendered as one unit of work by a render thread.<br>
+ * The coordinates are pixel coordinates of the camera (y = 0 is the bottom row of the image).
+ */
+public final class Tile {
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int mortonCode;
+
+    /**
+     * @param x the first pixel column of the tile
+     * @param y the first pixel row of the tile
+     * @param width the width of the tile in pixels
+     * @param height the height of the tile in pixels
+     * @param mortonCode the position of the tile on the morton curve over all tiles
+     */
+    private Tile(int x, int y, int width, int height, int mortonCode) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.mortonCode = mortonCode;
+    }
+
+    /**
+     * Splits the image into square tiles (smaller at the right and top border) and sorts them along a morton curve (Z-order),
+     * so tiles that are rendered one after the other are close to each other and touch the same parts of the scene
+     * @param imageWidth the width of the image in pixels
+     * @param imageHeight the height of the image in pixels
+     * @param tileSize the width and height of a tile in pixels
+     * @return the tiles in morton order
+     */
+    public static List<Tile> createTiles(int imageWidth, int imageHeight, int tileSize) {
+        List<Tile> tiles = new ArrayList<>();
+        for(int tileY = 0; tileY * tileSize < imageHeight; tileY++) {
+            for(int tileX = 0; tileX * tileSize < imageWidth; tileX++) {
+                int x = tileX * tileSize;
+                int y = tileY * tileSize;
+                tiles.add(new Tile(x, y, Math.min(tileSize, imageWidth - x), Math.min(tileSize, imageHeight - y), interleaveBits(tileX) | interleaveBits(tileY) << 1));
+            }
+        }
+        tiles.sort(Comparator.comparingInt(tile -> tile.mortonCode));
+        return tiles;
+    }
+
+    /**
+     * Spreads the lower 16 bits of the value, so there is a 0 bit between every two bits
+     * @param value the value to spread
+     * @return the spread value
+     */
+    private static int interleaveBits(int value) {
+        value &= 0x0000FFFF;
+        value = (value | (value << 8)) & 0x00FF00FF;
+        value = (value | (value << 4)) & 0x0F0F0F0F;
+        value = (value | (value << 2)) & 0x33333333;
+        value = (value | (value << 1)) & 0x55555555;
+        return value;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixelCount() {
+        return width * height;
+    }
+
+    @Override
+    public String toString() {
+        return "Tile (" +
+                "x: " + x +
+                ", y: " + y +
+                ", width: " + width +
+                ", height: " + height +
+                ')';
+    }
+}
@@ -0,0 +1,34 @@
+package RayTracing;
+
+import SceneData.Scene;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measured render times of the tiles of the last frame of every scene.<br>
+ * The frames of an animation have the same tiles, so the times of one frame are a good estimate for the next one.
+ */
+class TileCostHistory {
+    private final Map<String, long[]> costs = new HashMap<>();
+
+    /**
+     * Returns the render times of the tiles in the last frame of the scene with the same tiles
+     * @param scene the scene of the frame
+     * @param tileSize the size of the tiles
+     * @param tileCount the number of tiles
+     * @return the render time of every tile in nanoseconds, or null if there is no such frame
+     */
+    synchronized long[] getCosts(Scene scene, int tileSize, int tileCount) {
+        long[] tileCosts = costs.get(getKey(scene, tileSize));
+        return tileCosts != null && tileCosts.length == tileCount ? tileCosts : null;
+    }
+
+    synchronized void setCosts(Scene scene, int tileSize, long[] tileCosts) {
+        costs.put(getKey(scene, tileSize), tileCosts);
+    }
+
+    private static String getKey(Scene scene, int tileSize) {
+        return scene.getOutputFileName() + "_" + scene.getCamera().getWidth() + "x" + scene.getCamera().getHeight() + "_" + tileSize;
+    }
+}
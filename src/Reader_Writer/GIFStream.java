@@ -0,0 +1,96 @@
+package Reader_Writer;
+
+import Reader_Writer.Exceptions.GIFWrtierException;
+import SceneData.DataTypes.FrameBuffer;
+import com.squareup.gifencoder.GifEncoder;
+import com.squareup.gifencoder.ImageOptions;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GIF that is written frame by frame: every frame is encoded and written to the file as soon as it is added,
+ * so the frames don't have to be kept until the end (e.g. long animations in high resolution).
+ */
+public class GIFStream implements AutoCloseable {
+    private final String outputGifPath;
+    private final FileOutputStream outputStream;
+    private final GifEncoder gifEncoder;
+    private final ImageOptions options;
+    private int frameCount = 0;
+
+    /**
+     * Creates the GIF file and writes its header
+     * @param outputGifPath Path + name where the GIF should be saved
+     * @param width Width of the GIF/Source images
+     * @param height Height of the GIF/Source images
+     * @param frameDelay time between two frames in milliseconds
+     * @throws GIFWrtierException If the file could not be created
+     */
+    public GIFStream(String outputGifPath, int width, int height, long frameDelay) throws GIFWrtierException {
+        this.outputGifPath = outputGifPath;
+        try {
+            this.outputStream = new FileOutputStream(outputGifPath);
+        } catch (IOException e) {
+            throw new GIFWrtierException("Error while creating GIF: " + outputGifPath);
+        }
+        try {
+            this.gifEncoder = new GifEncoder(outputStream, width, height, 0);
+        } catch (IOException e) {
+            try {
+                outputStream.close();
+            } catch (IOException ignored) {
+                //the header could not be written, the file is broken anyway
+            }
+            throw new GIFWrtierException("Error while creating GIF: " + outputGifPath);
+        }
+        this.options = new ImageOptions();
+        options.setDelay(frameDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encodes the image as the next frame of the GIF, the image is not kept
+     * @param image the frame to add (same size as the GIF)
+     * @throws GIFWrtierException If an error occurs while writing the frame
+     */
+    public void addFrame(FrameBuffer image) throws GIFWrtierException {
+        try {
+            gifEncoder.addImage(convertToInt(image), options);
+            frameCount++;
+        } catch (IOException e) {
+            throw new GIFWrtierException("Error while adding frame " + (frameCount + 1) + " to GIF: " + outputGifPath);
+        }
+    }
+
+    /**
+     * Finishes the encoding and closes the file
+     * @throws GIFWrtierException If an error occurs while finishing the GIF
+     */
+    @Override
+    public void close() throws GIFWrtierException {
+        try (outputStream) {
+            gifEncoder.finishEncoding();
+            System.out.println("GIF created under: '" + outputGifPath + "' (" + frameCount + " frames)!");
+        } catch (IOException e) {
+            throw new GIFWrtierException("Error while creating GIF");
+        }
+    }
+
+    /**
+     * Converts a {@link FrameBuffer} image to a int[][]
+     * @param image Image to convert
+     * @return Converted image
+     */
+    private int[][] convertToInt(FrameBuffer image) {
+        int[][] intImage = new int[image.getHeight()][image.getWidth()];
+
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                intImage[y][x] = image.getRGB(x, y);
+            }
+        }
+
+        return intImage;
+    }
+}
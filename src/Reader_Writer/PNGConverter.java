@@ -1,39 +1,45 @@
 package Reader_Writer;
 
+import SceneData.DataTypes.FrameBuffer;
 import SceneData.DataTypes.MyColor;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 import Reader_Writer.Exceptions.PNGConverterException;
 
 public class PNGConverter {
     /**
-     * Creates a PNG image from a 2D array of {@link MyColor}
-     * @param image the 2D array of {@link MyColor}
+     * Creates a PNG image from a {@link FrameBuffer}
+     * @param image the rendered image
      * @param outputFilePath the path where the image will be saved
      */
-    public void createPNG(MyColor[][] image, String outputFilePath) throws PNGConverterException {
+    public void createPNG(FrameBuffer image, String outputFilePath) throws PNGConverterException {
 
-        if(image.length == 0 || image[0].length == 0){
+        if(image.isEmpty()){
             throw new PNGConverterException("Error while creating PNG image: image is empty.");
         }
 
-        int height = image.length;
-        int width = image[0].length;
+        int height = image.getHeight();
+        int width = image.getWidth();
 
         try {
-            //create a new bufferedImage with the same dimensions as the image array
+            //create a new bufferedImage with the same dimensions as the frame buffer
             BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
-            //go through each pixel in the image array and set the corresponding pixel in the bufferedImage
+            //convert the pixels of the frame buffer row by row and set them in the bufferedImage
+            int[] row = new int[width];
             for(int y = 0; y <height; y++){
                 for(int x = 0; x < width; x++){
-                    Color color = image[y][x].getConvertedRGB();
-                    bufferedImage.setRGB(x, y, color.getRGB());
+                    row[x] = image.getRGB(x, y);
                 }
+                bufferedImage.setRGB(0, y, width, 1, row, 0, width);
             }
 
             //create and save the image as PNG
@@ -46,6 +52,56 @@ public class PNGConverter {
         }
     }
 
+    /**
+     * Creates a heatmap PNG of one channel of a {@link FrameBuffer} (e.g. the number of rays per pixel of adaptive sampling).
+     * The values are mapped from blue (0) over green to red (maxValue and above).
+     * @param image the rendered image
+     * @param channel the channel to show
+     * @param maxValue the value that is shown in red
+     * @param outputFilePath the path where the image will be saved
+     */
+    public void createHeatmapPNG(FrameBuffer image, int channel, float maxValue, String outputFilePath) throws PNGConverterException {
+        if(channel >= image.getChannelCount()){
+            throw new PNGConverterException("Error while creating heatmap: the image has no channel " + channel + ".");
+        }
+
+        FrameBuffer heatmap = new FrameBuffer(image.getWidth(), image.getHeight());
+        for(int y = 0; y < image.getHeight(); y++){
+            for(int x = 0; x < image.getWidth(); x++){
+                float value = Math.max(0, Math.min(1, image.getChannel(x, y, channel) / maxValue));
+                //blue -> green in the lower half, green -> red in the upper half
+                heatmap.setColor(x, y, Math.max(0, 2 * value - 1), 1 - Math.abs(2 * value - 1), Math.max(0, 1 - 2 * value));
+            }
+        }
+        createPNG(heatmap, outputFilePath);
+    }
+
+    /**
+     * Checks that an image can be read without decoding its pixels: the file exists, its format is known and its header with the size can be read
+     * (e.g. to report a broken texture while the scene is read, but decode it only when it is used)
+     * @param inputFilePath the path of the image
+     * @throws PNGConverterException if the image could not be read/found
+     */
+    public void checkPNG(String inputFilePath) throws PNGConverterException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(inputFilePath))) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if(!readers.hasNext()) {
+                throw new PNGConverterException("Could not read image: " + inputFilePath);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if(reader.getWidth(0) <= 0 || reader.getHeight(0) <= 0) {
+                    throw new PNGConverterException("Could not read image: " + inputFilePath);
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ie) {
+            throw new PNGConverterException("Could not read image: " + inputFilePath);
+        }
+    }
+
     /**
      * Reads a PNG image and returns a 2D array of {@link MyColor}
      * @param inputFilePath the path of the image
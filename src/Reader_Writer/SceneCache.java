@@ -0,0 +1,93 @@
+package Reader_Writer;
+
+import RayTracing.Acceleration.EBuildMode;
+import Reader_Writer.Exceptions.XMLReaderException;
+import SceneData.Scene;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the scenes read by an {@link XMLReader}, so a scene that is rendered again (e.g. with another effect) is not parsed again,
+ * and its meshes are not read and built and its textures not decoded again.<br>
+ * A scene is read again if the XML file or any mesh or texture file it references was modified since it was read,
+ * or if its meshes were built with another build mode than the reader uses now.<br><br>
+ * The cache returns snapshots of the cached scenes (see {@link Scene#copy()}), so a returned scene can be changed without changing the cached one.
+ */
+public class SceneCache {
+    private final XMLReader xmlReader;
+    private final Map<String, CachedScene> scenes = new HashMap<>();
+
+    /**
+     * @param xmlReader the reader the scenes are read with if they are not cached (its mesh build mode is used)
+     */
+    public SceneCache(XMLReader xmlReader) {
+        this.xmlReader = xmlReader;
+    }
+
+    /**
+     * Returns the scene of the XML file, read from the disk only if it is not cached or one of its files was modified
+     * @param filePath the path and name of the XML file
+     * @param scenePath the folder of the mesh and texture files of the scene
+     * @return a snapshot of the scene
+     * @throws XMLReaderException if the XML file is not found or could not be parsed
+     */
+    public synchronized Scene readXML(String filePath, String scenePath) throws XMLReaderException {
+        String key = new File(filePath).getAbsolutePath();
+        CachedScene cachedScene = scenes.get(key);
+
+        if(cachedScene == null || !cachedScene.isValid(xmlReader.getMeshBuildMode())) {
+            Scene scene = xmlReader.readXML(filePath, scenePath);
+
+            Map<String, Long> modificationTimes = new LinkedHashMap<>();
+            for(String readFile : xmlReader.getReadFiles()) {
+                modificationTimes.put(readFile, new File(readFile).lastModified());
+            }
+            cachedScene = new CachedScene(scene, xmlReader.getMeshBuildMode(), modificationTimes);
+            scenes.put(key, cachedScene);
+        }
+
+        return cachedScene.scene.copy();
+    }
+
+    /**
+     * Removes all scenes from the cache
+     */
+    public synchronized void clear() {
+        scenes.clear();
+    }
+
+    /**
+     * A read scene with the modification times of the files it was read from
+     */
+    private static final class CachedScene {
+        private final Scene scene;
+        private final EBuildMode meshBuildMode;
+        private final Map<String, Long> modificationTimes;
+
+        private CachedScene(Scene scene, EBuildMode meshBuildMode, Map<String, Long> modificationTimes) {
+            this.scene = scene;
+            this.meshBuildMode = meshBuildMode;
+            this.modificationTimes = modificationTimes;
+        }
+
+        /**
+         * Checks if the scene can still be used: no file was modified (or deleted) and the meshes were built with the given build mode
+         * @param meshBuildMode the build mode the meshes should have
+         * @return true if the cached scene is up to date, false if it has to be read again
+         */
+        private boolean isValid(EBuildMode meshBuildMode) {
+            if(this.meshBuildMode != meshBuildMode) {
+                return false;
+            }
+            for(Map.Entry<String, Long> entry : modificationTimes.entrySet()) {
+                if(new File(entry.getKey()).lastModified() != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package Reader_Writer;
+
+import Reader_Writer.Exceptions.PNGConverterException;
+import SceneData.DataTypes.MyColor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of the decoded texture images of the whole program, so all materials with the same texture file share one image
+ * instead of every material decoding and keeping its own copy.<br>
+ * The images are kept as soft references: an image that is not used by any material anymore stays cached until the memory is needed.
+ * An image is decoded again if its file was modified since it was decoded.
+ */
+public final class TextureCache {
+    private static final PNGConverter pngConverter = new PNGConverter();
+    private static final Map<String, CachedTexture> textures = new HashMap<>();
+
+    private TextureCache() {
+    }
+
+    /**
+     * Returns the decoded image of the texture file, the file is only read if it is not cached (or was modified)
+     * @param texturePath the path of the texture file
+     * @return the image as a 2D array of {@link MyColor} (shared, must not be changed)
+     * @throws PNGConverterException if the image could not be read/found
+     */
+    public static synchronized MyColor[][] getTexture(String texturePath) throws PNGConverterException {
+        String key = getKey(texturePath);
+        long lastModified = new File(key).lastModified();
+
+        CachedTexture cachedTexture = textures.get(key);
+        MyColor[][] image = cachedTexture != null && cachedTexture.lastModified == lastModified ? cachedTexture.image.get() : null;
+        if(image == null) {
+            image = pngConverter.readPNG(texturePath);
+            textures.put(key, new CachedTexture(new SoftReference<>(image), lastModified));
+        }
+        return image;
+    }
+
+    /**
+     * Removes all images from the cache
+     */
+    public static synchronized void clear() {
+        textures.clear();
+    }
+
+    /**
+     * Returns the canonical path of the texture file, so different paths of the same file share the image
+     */
+    private static String getKey(String texturePath) {
+        File file = new File(texturePath);
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException ie) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * A decoded image with the modification time of its file
+     */
+    private static final class CachedTexture {
+        private final SoftReference<MyColor[][]> image;
+        private final long lastModified;
+
+        private CachedTexture(SoftReference<MyColor[][]> image, long lastModified) {
+            this.image = image;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package Reader_Writer;
 
+import RayTracing.Acceleration.EAcceleratorType;
+import RayTracing.Acceleration.EBuildMode;
 import Reader_Writer.Exceptions.XMLReaderException;
 import SceneData.Camera;
 import SceneData.DataTypes.*;
@@ -30,10 +32,33 @@ public class XMLReader {
 
     private String outputFileName;
     private MyColor backgroundColor;
+    private EAcceleratorType acceleratorType;
     private Camera camera;
     private List<Light> lights = new ArrayList<>();
     private List<Surface> surfaces = new ArrayList<>();
     private static OBJReader objReader = new OBJReader();
+    private EBuildMode meshBuildMode = EBuildMode.SAH;
+    private List<String> readFiles = new ArrayList<>();
+
+    /**
+     * Sets how the bounding volume hierarchies of the meshes are built (SAH for the best render times, LBVH for the fastest loading)
+     * @param meshBuildMode the build mode of the mesh hierarchies
+     */
+    public void setMeshBuildMode(EBuildMode meshBuildMode) {
+        this.meshBuildMode = meshBuildMode;
+    }
+
+    public EBuildMode getMeshBuildMode() {
+        return meshBuildMode;
+    }
+
+    /**
+     * Returns the files the last scene was read from: the XML file and all mesh and texture files it references
+     * @return the paths of the read files
+     */
+    public List<String> getReadFiles() {
+        return readFiles;
+    }
 
     /**
      * Reads the XML file and creates a Scene object
@@ -46,9 +71,12 @@ public class XMLReader {
 
         outputFileName = "";
         backgroundColor = new MyColor();
+        acceleratorType = EAcceleratorType.AUTO;
         camera = new Camera();
         lights = new ArrayList<>();
         surfaces = new ArrayList<>();
+        readFiles = new ArrayList<>();
+        readFiles.add(filePath);
 
         try {
             dbf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
@@ -62,6 +90,16 @@ public class XMLReader {
             //get outputFileName
             outputFileName = doc.getDocumentElement().getAttribute("output_file");
 
+            //get the acceleration structure (optional, the ray tracer chooses one if it is missing or 'auto')
+            String accelerator = doc.getDocumentElement().getAttribute("accelerator");
+            if(!accelerator.isEmpty()) {
+                try {
+                    acceleratorType = EAcceleratorType.valueOf(accelerator.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new XMLReaderException("Unknown accelerator '" + accelerator + "' in XML file: " + filePath);
+                }
+            }
+
             //get backgroundColor
             backgroundColor = (MyColor) readVector(doc.getElementsByTagName("background_color").item(0), EDataType.COLOR);
 
@@ -199,6 +237,7 @@ public class XMLReader {
             
             float radius = 0.0F;
             MyPoint surfacePosition = new MyPoint();
+            MyVector surfaceMotion = new MyVector();
             List<Triangle> triangles = new ArrayList<>();
             String meshName = "";
             Material material = null;
@@ -211,6 +250,7 @@ public class XMLReader {
                         case "sphere" -> {
                             //go through every sub-node of the sphere node and save the values
                             radius = Float.parseFloat(node.getAttributes().getNamedItem("radius").getNodeValue());
+                            surfaceMotion = new MyVector();
                             for (int j = 0; j < node.getChildNodes().getLength(); j++) {
                                 Node childNode = node.getChildNodes().item(j);
                                 if (childNode.getNodeType() == Node.ELEMENT_NODE) {
@@ -218,6 +258,10 @@ public class XMLReader {
                                         case "position" -> {
                                             surfacePosition = (MyPoint) readVector(childNode, EDataType.POINT);
                                         }
+                                        case "motion" -> {
+                                            //the sphere moves from its position (shutter open) by this vector (shutter close)
+                                            surfaceMotion = (MyVector) readVector(childNode, EDataType.VECTOR);
+                                        }
                                         case "material_solid" -> {
                                             //reads the material node and if its a solid material, create a solid material object
                                             material = readMaterial(childNode, true, scenePath);
@@ -230,12 +274,15 @@ public class XMLReader {
                                 }
                             }
                             //create sphere object with the saved values
-                            surfaces.add(new Sphere(radius, surfacePosition, material));
+                            Sphere sphere = new Sphere(radius, surfacePosition, material);
+                            sphere.setMotion(surfaceMotion);
+                            surfaces.add(sphere);
                         }
                         case "mesh" -> {
                             //get the name of the mesh file and read the triangles from the file
                             meshName = node.getAttributes().getNamedItem("name").getNodeValue();
                             triangles = objReader.readOBJ(scenePath + meshName);
+                            readFiles.add(scenePath + meshName);
 
                             //go through every sub-node of the sphere node and save the values
                             for (int j = 0; j < node.getChildNodes().getLength(); j++) {
@@ -253,8 +300,10 @@ public class XMLReader {
                                     }
                                 }
                             }
-                            //create mesh object with the saved values
-                            surfaces.add(new Mesh(meshName, triangles, material));
+                            //create mesh object with the saved values, this also builds the bounding volume hierarchy of the mesh
+                            Mesh mesh = new Mesh(meshName, triangles, material, meshBuildMode);
+                            System.out.println("Mesh '" + meshName + "': " + mesh.getBVHStatistics() + (Mesh.usesVectorAPI() ? ", leaves tested with the Vector API" : ""));
+                            surfaces.add(mesh);
                         }
 
                     }
@@ -269,7 +318,7 @@ public class XMLReader {
         }
 
         //create scene object with the saved values
-        return new Scene(outputFileName, backgroundColor, camera, lights, surfaces);
+        return new Scene(outputFileName, backgroundColor, camera, lights, surfaces, acceleratorType);
     }
 
     /**
@@ -312,6 +361,9 @@ public class XMLReader {
                 }
             }
         }
+        if(!isSolid) {
+            readFiles.add(texture);
+        }
         //if the material is solid, create a solid material object otherwise a textured material object
         return isSolid ?  new SolidMaterial(color, phong, reflectance, transmittance, refraction)
                         : new TexturedMaterial(texture, phong, reflectance, transmittance, refraction);
@@ -5,6 +5,10 @@ import SceneData.DataTypes.MyPoint;
 import SceneData.DataTypes.Ray;
 import SceneData.DataTypes.MyVector;
 
+/**
+ * Pinhole camera. The image plane is set up in world space once, so a primary ray only needs a few multiply-adds:<br>
+ * direction = imagePlaneOrigin + (pixelX + offsetX) * pixelStepX + (pixelY + offsetY) * pixelStepY
+ */
 public class Camera {
     private MyPoint position;
     private MyPoint lookAt;
@@ -14,6 +18,13 @@ public class Camera {
     private int resolutionVertical;
     private int maxBounces;
     private MyMatrix matrix;
+    private MyPoint rayOrigin;
+    /** direction from the camera to the corner (0,0) of the image plane in world space (not normalized) */
+    private float imagePlaneOriginX, imagePlaneOriginY, imagePlaneOriginZ;
+    /** change of the direction from one pixel to the next in x */
+    private float pixelStepXX, pixelStepXY, pixelStepXZ;
+    /** change of the direction from one pixel to the next in y */
+    private float pixelStepYX, pixelStepYY, pixelStepYZ;
 
     public Camera(MyPoint position, MyPoint lookAt, MyVector up, int horizontalFov, int resolutionHorizontal, int resolutionVertical, int maxBounces) {
         this.position = position;
@@ -24,6 +35,8 @@ public class Camera {
         this.resolutionVertical = resolutionVertical;
         this.maxBounces = maxBounces;
         this.matrix = getCameraTransformationMatrix();
+        this.rayOrigin = matrix.transform(new MyPoint());
+        setupImagePlane();
     }
 
     public Camera(){
@@ -35,6 +48,8 @@ public class Camera {
         this.resolutionVertical = 0;
         this.maxBounces = 0;
         this.matrix = getCameraTransformationMatrix();
+        this.rayOrigin = matrix.transform(new MyPoint());
+        setupImagePlane();
     }
 
     public int getWidth() {
@@ -64,44 +79,118 @@ public class Camera {
     }
 
     /**
-     * Returns a ray from the camera to the pixel at (x,y)
+     * Returns the origin of all primary rays (the position of the camera in world space)
+     * @return the origin of the rays
+     */
+    public MyPoint getRayOrigin() {
+        return rayOrigin;
+    }
+
+    /**
+     * Returns a ray from the camera to the center of the pixel at (x,y)
      * @param pixelX x-coordinate of the pixel
      * @param pixelY y-coordinate of the pixel
      * @return Ray from the camera to the pixel
      */
-    public Ray getRayToPixel(int pixelX, int pixelY, int rayCount, int sqrtRayCount) {
-        float offsetX = 0.5f;
-        float offsetY = 0.5f;
+    public Ray getRayToPixel(int pixelX, int pixelY) {
+        return getRayToPixel(pixelX, pixelY, 0.5f, 0.5f);
+    }
 
-        if (sqrtRayCount > 1){
-            offsetX = (float) (0.1 + (float) (rayCount % sqrtRayCount) / 10);
-            offsetY = (float) (0.1 + (float) (rayCount / sqrtRayCount) / 10);
-        }
+    /**
+     * Returns a ray from the camera through a position inside the pixel at (x,y) (e.g. a sample of a {@link RayTracing.Sampling.Sampler Sampler})
+     * @param pixelX x-coordinate of the pixel
+     * @param pixelY y-coordinate of the pixel
+     * @param offsetX offset from the corner of the pixel in x (between 0 and 1, 0.5 is the center)
+     * @param offsetY offset from the corner of the pixel in y (between 0 and 1, 0.5 is the center)
+     * @return Ray from the camera through the position in the pixel
+     */
+    public Ray getRayToPixel(int pixelX, int pixelY, float offsetX, float offsetY) {
+        return getRayToPixel(pixelX, pixelY, offsetX, offsetY, 0.0f);
+    }
+
+    /**
+     * Returns a ray from the camera through a position inside the pixel at (x,y) at a time between shutter open and close (motion blur)
+     * @param pixelX x-coordinate of the pixel
+     * @param pixelY y-coordinate of the pixel
+     * @param offsetX offset from the corner of the pixel in x (between 0 and 1, 0.5 is the center)
+     * @param offsetY offset from the corner of the pixel in y (between 0 and 1, 0.5 is the center)
+     * @param time the time of the ray (0 = shutter open, 1 = shutter close)
+     * @return Ray from the camera through the position in the pixel
+     */
+    public Ray getRayToPixel(int pixelX, int pixelY, float offsetX, float offsetY, float time) {
+        float u = pixelX + offsetX;
+        float v = pixelY + offsetY;
+
+        //the ray normalizes the direction
+        return new Ray(rayOrigin, new MyVector(
+                imagePlaneOriginX + u * pixelStepXX + v * pixelStepYX,
+                imagePlaneOriginY + u * pixelStepXY + v * pixelStepYY,
+                imagePlaneOriginZ + u * pixelStepXZ + v * pixelStepYZ
+        ), time);
+    }
 
-        float x = ((pixelX + offsetX) / this.getWidth());
-        float y = ((pixelY + offsetY) / this.getHeight());
+    /**
+     * Fills the directions of the primary rays through a block of pixels (e.g. a tile) into an array, without creating any objects.
+     * All primary rays start at {@link #getRayOrigin()}.
+     * @param startX x-coordinate of the first pixel of the block
+     * @param startY y-coordinate of the first pixel of the block
+     * @param width the number of pixels per row of the block
+     * @param height the number of rows of the block
+     * @param offsetX offset from the corner of every pixel in x (0.5 is the center)
+     * @param offsetY offset from the corner of every pixel in y (0.5 is the center)
+     * @param directions receives the directions (x, y, z, not normalized) row by row, at least 3 * width * height floats
+     */
+    public void getPrimaryRayDirections(int startX, int startY, int width, int height, float offsetX, float offsetY, float[] directions) {
+        int index = 0;
+        for(int y = startY; y < startY + height; y++) {
+            float v = y + offsetY;
+            //start of the row, then one step per pixel
+            float rowX = imagePlaneOriginX + v * pixelStepYX;
+            float rowY = imagePlaneOriginY + v * pixelStepYY;
+            float rowZ = imagePlaneOriginZ + v * pixelStepYZ;
+            for(int x = startX; x < startX + width; x++) {
+                float u = x + offsetX;
+                directions[index++] = rowX + u * pixelStepXX;
+                directions[index++] = rowY + u * pixelStepXY;
+                directions[index++] = rowZ + u * pixelStepXZ;
+            }
+        }
+    }
 
-        //map to image plane
-        float imageX = 2 * x - 1;
-        float imageY = 2 * y - 1;
+    /**
+     * Sets up the image plane in world space. In camera space the direction to (pixelX + offsetX, pixelY + offsetY) is
+     * ((2 * (pixelX + offsetX) / width - 1) * tan(fovX), (2 * (pixelY + offsetY) / height - 1) * tan(fovY), -1),
+     * which is the corner of the image plane plus a step in x per pixel plus a step in y per row. They are transformed to world space once.
+     */
+    private void setupImagePlane() {
+        if(getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
 
         //calculate fov + dimensions
         float fovX = (float) Math.toRadians(this.getFov());
         float fovY = fovX * (this.getHeight() / this.getWidth());
-
-        imageX *= (float) Math.tan(fovX);
-        imageY *= (float) Math.tan(fovY);
-
-        //create direction vector and origin (0,0,0)
-        MyVector direction = new MyVector(imageX, imageY, -1);
-        direction.normalize();
-        MyPoint origin = new MyPoint();
-
-        //transform to world space
-        origin = this.matrix.transform(origin);
-        direction = this.matrix.transform(direction);
-
-        return new Ray(origin, direction);
+        float tanX = (float) Math.tan(fovX);
+        float tanY = (float) Math.tan(fovY);
+
+        //axes of the camera in world space
+        MyVector right = matrix.transformVector(1, 0, 0);
+        MyVector upAxis = matrix.transformVector(0, 1, 0);
+        MyVector back = matrix.transformVector(0, 0, 1);
+
+        float stepX = 2 * tanX / getWidth();
+        float stepY = 2 * tanY / getHeight();
+        pixelStepXX = right.getX() * stepX;
+        pixelStepXY = right.getY() * stepX;
+        pixelStepXZ = right.getZ() * stepX;
+        pixelStepYX = upAxis.getX() * stepY;
+        pixelStepYY = upAxis.getY() * stepY;
+        pixelStepYZ = upAxis.getZ() * stepY;
+
+        //corner (-tanX, -tanY, -1) of the image plane
+        imagePlaneOriginX = -tanX * right.getX() - tanY * upAxis.getX() - back.getX();
+        imagePlaneOriginY = -tanX * right.getY() - tanY * upAxis.getY() - back.getY();
+        imagePlaneOriginZ = -tanX * right.getZ() - tanY * upAxis.getZ() - back.getZ();
     }
 
     /**
@@ -0,0 +1,160 @@
+package SceneData.DataTypes;
+
+/**
+ * Axis aligned bounding box, defined by its min and max corner.<br>
+ * Used by the acceleration structures to skip everything inside the box if a ray misses it.
+ */
+public class BoundingBox {
+    private float minX;
+    private float minY;
+    private float minZ;
+    private float maxX;
+    private float maxY;
+    private float maxZ;
+
+    public BoundingBox(MyPoint min, MyPoint max) {
+        this.minX = min.getX();
+        this.minY = min.getY();
+        this.minZ = min.getZ();
+        this.maxX = max.getX();
+        this.maxY = max.getY();
+        this.maxZ = max.getZ();
+    }
+
+    /**
+     * creates an empty box, that contains nothing (min = +infinity, max = -infinity)
+     */
+    public BoundingBox() {
+        this.minX = this.minY = this.minZ = Float.POSITIVE_INFINITY;
+        this.maxX = this.maxY = this.maxZ = Float.NEGATIVE_INFINITY;
+    }
+
+    public float getMin(int axis) {
+        return switch (axis) {
+            case 0 -> minX;
+            case 1 -> minY;
+            default -> minZ;
+        };
+    }
+
+    public float getMax(int axis) {
+        return switch (axis) {
+            case 0 -> maxX;
+            case 1 -> maxY;
+            default -> maxZ;
+        };
+    }
+
+    /**
+     * Returns the center of the box on the given axis
+     * @param axis the axis (0 = x, 1 = y, 2 = z)
+     * @return the center of the box on the axis
+     */
+    public float getCenter(int axis) {
+        return (getMin(axis) + getMax(axis)) * 0.5f;
+    }
+
+    /**
+     * Checks if the box contains nothing (was never expanded)
+     * @return true if the box is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Grows the box so that it contains the given point
+     * @param point the point that has to be inside the box
+     */
+    public void expand(MyPoint point) {
+        minX = Math.min(minX, point.getX());
+        minY = Math.min(minY, point.getY());
+        minZ = Math.min(minZ, point.getZ());
+        maxX = Math.max(maxX, point.getX());
+        maxY = Math.max(maxY, point.getY());
+        maxZ = Math.max(maxZ, point.getZ());
+    }
+
+    /**
+     * Grows the box so that it contains the given box
+     * @param other the box that has to be inside this box
+     */
+    public void expand(BoundingBox other) {
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+    }
+
+    /**
+     * Returns the axis on which the box is the longest
+     * @return the longest axis (0 = x, 1 = y, 2 = z)
+     */
+    public int getLongestAxis() {
+        float extentX = maxX - minX;
+        float extentY = maxY - minY;
+        float extentZ = maxZ - minZ;
+
+        if(extentX >= extentY && extentX >= extentZ) {
+            return 0;
+        }
+        return extentY >= extentZ ? 1 : 2;
+    }
+
+    /**
+     * Returns the surface area of the box (0 if the box is empty)
+     * @return the surface area of the box
+     */
+    public float getSurfaceArea() {
+        if(isEmpty()) {
+            return 0.0f;
+        }
+        float extentX = maxX - minX;
+        float extentY = maxY - minY;
+        float extentZ = maxZ - minZ;
+        return 2 * (extentX * extentY + extentY * extentZ + extentZ * extentX);
+    }
+
+    /**
+     * Checks if the ray hits the box somewhere between 0 and tMax (slab test)
+     * @param origin the origin of the ray
+     * @param direction the normalized direction of the ray
+     * @param tMax the maximum distance along the ray
+     * @return true if the ray hits the box, false otherwise
+     */
+    public boolean intersect(MyPoint origin, MyVector direction, float tMax) {
+        float tNear = 0.0f;
+        float tFar = tMax;
+
+        for(int axis = 0; axis < 3; axis++) {
+            float rayOrigin = axis == 0 ? origin.getX() : axis == 1 ? origin.getY() : origin.getZ();
+            float inverseDirection = 1.0f / (axis == 0 ? direction.getX() : axis == 1 ? direction.getY() : direction.getZ());
+
+            float t0 = (getMin(axis) - rayOrigin) * inverseDirection;
+            float t1 = (getMax(axis) - rayOrigin) * inverseDirection;
+            if(t0 > t1) {
+                float temp = t0;
+                t0 = t1;
+                t1 = temp;
+            }
+
+            //NaN (origin on the slab and direction parallel to it) is ignored by the comparisons
+            if(t0 > tNear) tNear = t0;
+            if(t1 < tFar) tFar = t1;
+            if(tNear > tFar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox (" +
+                "min: (" + minX + ", " + minY + ", " + minZ + ")" +
+                ", max: (" + maxX + ", " + maxY + ", " + maxZ + ")" +
+                ')';
+    }
+}
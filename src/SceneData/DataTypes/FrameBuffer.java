@@ -0,0 +1,185 @@
+package SceneData.DataTypes;
+
+/**
+ * Image of the ray tracer, stored in one float array instead of one {@link MyColor} object per pixel.<br><br>
+ * The pixels are stored row by row, starting with the top row. Every pixel has channelCount floats:
+ * r, g, b and optional extra channels after them (e.g. values a render pass wants to keep per pixel).
+ */
+public class FrameBuffer {
+    /** number of channels of a color image (r, g, b) */
+    public static final int RGB_CHANNELS = 3;
+
+    private final int width;
+    private final int height;
+    private final int channelCount;
+    private final float[] data;
+
+    /**
+     * creates a black RGB image
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     */
+    public FrameBuffer(int width, int height) {
+        this(width, height, RGB_CHANNELS);
+    }
+
+    /**
+     * creates a black image with extra channels after r, g, b (all 0)
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param channelCount the number of floats per pixel (at least 3)
+     */
+    public FrameBuffer(int width, int height, int channelCount) {
+        if(channelCount < RGB_CHANNELS) {
+            throw new IllegalArgumentException("A frame buffer needs at least " + RGB_CHANNELS + " channels, got " + channelCount);
+        }
+        this.width = width;
+        this.height = height;
+        this.channelCount = channelCount;
+        this.data = new float[width * height * channelCount];
+    }
+
+    /**
+     * Creates a copy of this image, that does not change when this image changes
+     * @return a new frame buffer with the same size and values
+     */
+    public FrameBuffer copy() {
+        FrameBuffer copy = new FrameBuffer(width, height, channelCount);
+        System.arraycopy(data, 0, copy.data, 0, data.length);
+        return copy;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    /**
+     * Returns the array the pixels are stored in (row by row from the top, channelCount floats per pixel)
+     * @return the pixel data
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    /**
+     * Checks if the image has no pixels
+     * @return true if the width or the height is 0, false otherwise
+     */
+    public boolean isEmpty() {
+        return width == 0 || height == 0;
+    }
+
+    private int getOffset(int x, int y) {
+        return (y * width + x) * channelCount;
+    }
+
+    public float getR(int x, int y) {
+        return data[getOffset(x, y)];
+    }
+
+    public float getG(int x, int y) {
+        return data[getOffset(x, y) + 1];
+    }
+
+    public float getB(int x, int y) {
+        return data[getOffset(x, y) + 2];
+    }
+
+    /**
+     * Returns a channel of the pixel at (x, y)
+     * @param channel the channel (0 = r, 1 = g, 2 = b, extra channels after them)
+     * @return the value of the channel
+     */
+    public float getChannel(int x, int y, int channel) {
+        return data[getOffset(x, y) + channel];
+    }
+
+    public void setChannel(int x, int y, int channel, float value) {
+        data[getOffset(x, y) + channel] = value;
+    }
+
+    /**
+     * Saves the color of the pixel at (x, y) (the values are copied, the color is not kept)
+     * @param color the color of the pixel
+     */
+    public void setColor(int x, int y, MyColor color) {
+        setColor(x, y, color.getR(), color.getG(), color.getB());
+    }
+
+    public void setColor(int x, int y, float r, float g, float b) {
+        int offset = getOffset(x, y);
+        data[offset] = r;
+        data[offset + 1] = g;
+        data[offset + 2] = b;
+    }
+
+    /**
+     * Returns the color of the pixel at (x, y) as a new {@link MyColor}
+     * @return the color of the pixel
+     */
+    public MyColor getColor(int x, int y) {
+        int offset = getOffset(x, y);
+        return new MyColor(data[offset], data[offset + 1], data[offset + 2]);
+    }
+
+    /**
+     * Returns the color of the pixel at (x, y) as an int (like {@link MyColor#getRGB()}), the values are clamped to 0-255
+     * @return the RGB value of the pixel with full alpha
+     */
+    public int getRGB(int x, int y) {
+        int offset = getOffset(x, y);
+        return 0xFF << 24 | toByte(data[offset]) << 16 | toByte(data[offset + 1]) << 8 | toByte(data[offset + 2]);
+    }
+
+    private static int toByte(float value) {
+        return Math.max(0, (int) Math.min(value * 255, 255));
+    }
+
+    /**
+     * Adds the r, g, b values of the other image to this image pixel by pixel (e.g. to average several images)
+     * @param other an image with the same size
+     */
+    public void add(FrameBuffer other) {
+        checkSameSize(other);
+        for(int pixel = 0; pixel < width * height; pixel++) {
+            for(int channel = 0; channel < RGB_CHANNELS; channel++) {
+                data[pixel * channelCount + channel] += other.data[pixel * other.channelCount + channel];
+            }
+        }
+    }
+
+    /**
+     * Multiplies the r, g, b values of every pixel with a scalar
+     * @param scalar the scalar to multiply with
+     */
+    public void scale(float scalar) {
+        for(int pixel = 0; pixel < width * height; pixel++) {
+            for(int channel = 0; channel < RGB_CHANNELS; channel++) {
+                data[pixel * channelCount + channel] *= scalar;
+            }
+        }
+    }
+
+    private void checkSameSize(FrameBuffer other) {
+        if(other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Frame buffers have different sizes: " + width + "x" + height + " and " + other.width + "x" + other.height);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FrameBuffer (" +
+                "width: " + width +
+                ", height: " + height +
+                ", channels: " + channelCount +
+                ')';
+    }
+}
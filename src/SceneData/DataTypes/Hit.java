@@ -0,0 +1,93 @@
+package SceneData.DataTypes;
+
+import SceneData.Surface.Surface;
+
+/**
+ * The closest hit of a ray found so far, filled by the cheap distance tests of the surfaces.<br><br>
+ * It contains: <br>
+ * - the distance from the ray origin to the hit -> t (Float.MAX_VALUE until something is hit, closer hits replace it)<br>
+ * - the barycentric coordinates of the hit, if the primitive is a triangle -> u, v<br>
+ * - the surface that was hit and the index of the primitive inside the surface (e.g. the triangle of a mesh) -> surface, primitiveId<br><br>
+ * The full {@link Intersection} (normal, point, color) is only calculated once for the final hit with {@link Surface#getIntersection(Ray, Hit)}.
+ */
+public class Hit {
+    private float t;
+    private float u;
+    private float v;
+    private Surface surface;
+    private int primitiveId;
+
+    public Hit() {
+        this(Float.MAX_VALUE);
+    }
+
+    /**
+     * creates an empty hit, that only accepts hits closer than tMax
+     * @param tMax the maximum distance of a hit
+     */
+    public Hit(float tMax) {
+        this.t = tMax;
+        this.surface = null;
+        this.primitiveId = -1;
+    }
+
+    /**
+     * Checks if a surface was hit
+     * @return true if a surface was hit, false otherwise
+     */
+    public boolean hasHit() {
+        return surface != null;
+    }
+
+    public float getT() {
+        return t;
+    }
+
+    public float getU() {
+        return u;
+    }
+
+    public float getV() {
+        return v;
+    }
+
+    public Surface getSurface() {
+        return surface;
+    }
+
+    public int getPrimitiveId() {
+        return primitiveId;
+    }
+
+    /**
+     * Saves the distance and the barycentric coordinates of a closer hit
+     * @param t the distance from the ray origin to the hit
+     * @param u the first barycentric coordinate (0 if the primitive is no triangle)
+     * @param v the second barycentric coordinate (0 if the primitive is no triangle)
+     */
+    public void setDistance(float t, float u, float v) {
+        this.t = t;
+        this.u = u;
+        this.v = v;
+    }
+
+    /**
+     * Saves which primitive the closer hit belongs to
+     * @param surface the surface that was hit
+     * @param primitiveId the index of the primitive inside the surface
+     */
+    public void setPrimitive(Surface surface, int primitiveId) {
+        this.surface = surface;
+        this.primitiveId = primitiveId;
+    }
+
+    @Override
+    public String toString() {
+        return "Hit {" +
+                "\n\tt: " + t +
+                ",\n\tu: " + u +
+                ",\n\tv: " + v +
+                ",\n\tprimitiveId: " + primitiveId +
+                "\n\t}";
+    }
+}
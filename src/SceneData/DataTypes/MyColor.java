@@ -64,6 +64,39 @@ public class MyColor extends DataType {
         this.z += other.z;
     }
 
+    /**
+     * Adds the given values to this ColorVector (r+r, g+g, b+b), without creating a new ColorVector.
+     * @param r the red value to add
+     * @param g the green value to add
+     * @param b the blue value to add
+     */
+    public void add(float r, float g, float b) {
+        this.x += r;
+        this.y += g;
+        this.z += b;
+    }
+
+    /**
+     * Adds the given ColorVector multiplied with a scalar to this ColorVector, without creating a new ColorVector.
+     * @param other the ColorVector to add
+     * @param scalar the scalar the other ColorVector is multiplied with
+     */
+    public void addScaled(MyColor other, float scalar) {
+        this.x += other.x * scalar;
+        this.y += other.y * scalar;
+        this.z += other.z * scalar;
+    }
+
+    /**
+     * Multiplies this ColorVector with a scalar, without creating a new ColorVector.
+     * @param scalar The scalar to multiply with.
+     */
+    public void scaleInPlace(float scalar) {
+        this.x *= scalar;
+        this.y *= scalar;
+        this.z *= scalar;
+    }
+
     /**
      * Returns a new ColorVector that is the sum of the two given ColorVectors.
      * @param one the first ColorVector
@@ -86,9 +86,21 @@ public class MyMatrix {
      * @return The transformed vector.
      */
     public MyVector transform(MyVector vector) {
-        float x = matrix[0][0] * vector.getX() + matrix[0][1] * vector.getY() + matrix[0][2] * vector.getZ();
-        float y = matrix[1][0] * vector.getX() + matrix[1][1] * vector.getY() + matrix[1][2] * vector.getZ();
-        float z = matrix[2][0] * vector.getX() + matrix[2][1] * vector.getY() + matrix[2][2] * vector.getZ();
-        return new MyVector(x, y, z);
+        return transformVector(vector.getX(), vector.getY(), vector.getZ());
+    }
+
+    /**
+     * Transforms the vector (x, y, z) using the matrix, without creating a vector for the input.
+     * @param x The x value of the vector.
+     * @param y The y value of the vector.
+     * @param z The z value of the vector.
+     * @return The transformed vector.
+     */
+    public MyVector transformVector(float x, float y, float z) {
+        return new MyVector(
+                matrix[0][0] * x + matrix[0][1] * y + matrix[0][2] * z,
+                matrix[1][0] * x + matrix[1][1] * y + matrix[1][2] * z,
+                matrix[2][0] * x + matrix[2][1] * y + matrix[2][2] * z
+        );
     }
 }
@@ -1,50 +1,129 @@
 package SceneData.DataTypes;
 
-public class Ray {
-    private MyPoint origin;
-    private MyVector direction;
-    private float t;
+/**
+ * Immutable ray, that is only valid between tMin and tMax.<br><br>
+ * The direction is normalized once when the ray is created, together with the values every intersection test needs:<br>
+ * - the inverse direction (1 / direction) for the slab tests of the bounding boxes<br>
+ * - the sign of every direction value (1 if negative, 0 otherwise) to pick the near and far planes of the boxes<br><br>
+ * Every ray has a time between shutter open (0) and shutter close (1), moving surfaces are tested at the position they have at that time (motion blur).<br><br>
+ * Nothing of the ray changes while it is tested, so it can safely be tested by several threads at once.
+ * The closest hit found so far is kept in a {@link Hit} per search instead.
+ */
+public final class Ray {
+    /** the minimum distance of a hit by default, used to avoid self-intersection of rays starting on a surface */
+    public static final float DEFAULT_T_MIN = 0.01f;
 
+    private final MyPoint origin;
+    private final MyVector direction;
+    private final float inverseDirectionX;
+    private final float inverseDirectionY;
+    private final float inverseDirectionZ;
+    private final int signX;
+    private final int signY;
+    private final int signZ;
+    private final float tMin;
+    private final float tMax;
+    private final float time;
+
+    /**
+     * creates a ray that is valid from DEFAULT_T_MIN to Float.MAX_VALUE at shutter open (time 0)
+     * @param origin the origin of the ray
+     * @param direction the direction of the ray (does not have to be normalized)
+     */
     public Ray(MyPoint origin, MyVector direction) {
-        this.origin = origin;
-        this.direction = direction;
-        this.t = 0;
+        this(origin, direction, DEFAULT_T_MIN, Float.MAX_VALUE, 0.0f);
     }
 
-    public Ray(MyPoint origin) {
-        this.origin = origin;
-        this.direction = new MyVector();
-        this.t = 0;
+    /**
+     * creates a ray that is valid from DEFAULT_T_MIN to Float.MAX_VALUE
+     * @param origin the origin of the ray
+     * @param direction the direction of the ray (does not have to be normalized)
+     * @param time the time of the ray (0 = shutter open, 1 = shutter close)
+     */
+    public Ray(MyPoint origin, MyVector direction, float time) {
+        this(origin, direction, DEFAULT_T_MIN, Float.MAX_VALUE, time);
     }
 
-    public Ray() {
-        this.origin = new MyPoint();
-        this.direction = new MyVector();
-        this.t = 0;
+    /**
+     * @param origin the origin of the ray
+     * @param direction the direction of the ray (does not have to be normalized)
+     * @param tMin the value, which the distance of a hit has to be greater than
+     * @param tMax the value, which the distance of a hit has to be smaller than (e.g. the distance to a light)
+     * @param time the time of the ray (0 = shutter open, 1 = shutter close), e.g. the time of the ray the hit was found with
+     */
+    public Ray(MyPoint origin, MyVector direction, float tMin, float tMax, float time) {
+        this.origin = origin;
+        this.direction = direction.getNormalized();
+        this.inverseDirectionX = 1.0f / this.direction.getX();
+        this.inverseDirectionY = 1.0f / this.direction.getY();
+        this.inverseDirectionZ = 1.0f / this.direction.getZ();
+        this.signX = inverseDirectionX < 0 ? 1 : 0;
+        this.signY = inverseDirectionY < 0 ? 1 : 0;
+        this.signZ = inverseDirectionZ < 0 ? 1 : 0;
+        this.tMin = tMin;
+        this.tMax = tMax;
+        this.time = time;
     }
 
     public MyPoint getOrigin() {
         return origin;
     }
 
+    /**
+     * Returns the normalized direction of the ray (must not be changed)
+     * @return the normalized direction
+     */
     public MyVector getDirection() {
         return direction;
     }
 
-    public float getT() {
-        return t;
+    public float getInverseDirectionX() {
+        return inverseDirectionX;
+    }
+
+    public float getInverseDirectionY() {
+        return inverseDirectionY;
+    }
+
+    public float getInverseDirectionZ() {
+        return inverseDirectionZ;
+    }
+
+    /**
+     * @return 1 if the direction is negative on the x axis, 0 otherwise
+     */
+    public int getSignX() {
+        return signX;
+    }
+
+    /**
+     * @return 1 if the direction is negative on the y axis, 0 otherwise
+     */
+    public int getSignY() {
+        return signY;
+    }
+
+    /**
+     * @return 1 if the direction is negative on the z axis, 0 otherwise
+     */
+    public int getSignZ() {
+        return signZ;
     }
 
-    public void setT(float t) {
-        this.t = t;
+    public float getTMin() {
+        return tMin;
     }
 
-    public void setOrigin(MyPoint point) {
-        this.origin = point;
+    public float getTMax() {
+        return tMax;
     }
 
-    public void setDirection(MyVector vector) {
-        this.direction = vector;
+    /**
+     * Returns the time of the ray, moving surfaces are tested at their position at this time
+     * @return the time between 0 (shutter open) and 1 (shutter close)
+     */
+    public float getTime() {
+        return time;
     }
 
     @Override
@@ -52,6 +131,9 @@ public class Ray {
         return "Ray {" +
                 "\n\torigin: " + origin +
                 ",\n\tdirection: " + direction +
+                ",\n\ttMin: " + tMin +
+                ",\n\ttMax: " + tMax +
+                ",\n\ttime: " + time +
                 "\n\t}";
     }
 }
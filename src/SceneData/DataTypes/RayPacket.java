@@ -0,0 +1,59 @@
+package SceneData.DataTypes;
+
+/**
+ * Group of coherent rays (e.g. the primary rays of a 4x4 pixel block), that traverse the acceleration structures together.<br>
+ * A box is tested for the rays of the packet until the first one hits it, all following rays visit the node with it,
+ * so neighbouring rays share most node tests instead of repeating them.<br><br>
+ * The rays only traverse together if all of them point in the same octant (same signs on every axis),
+ * otherwise the packet is diverging and every ray is traced on its own.
+ */
+public final class RayPacket {
+    /** rays of a 4x4 pixel block */
+    public static final int MAX_SIZE = 16;
+
+    private final Ray[] rays;
+    private final int size;
+    private final boolean coherent;
+
+    /**
+     * @param rays the rays of the packet (at least size)
+     * @param size the number of rays in the packet (at most MAX_SIZE)
+     */
+    public RayPacket(Ray[] rays, int size) {
+        this.rays = rays;
+        this.size = size;
+
+        boolean sameSigns = true;
+        for(int i = 1; i < size; i++) {
+            if(rays[i].getSignX() != rays[0].getSignX() || rays[i].getSignY() != rays[0].getSignY() || rays[i].getSignZ() != rays[0].getSignZ()) {
+                sameSigns = false;
+                break;
+            }
+        }
+        this.coherent = sameSigns;
+    }
+
+    public Ray getRay(int index) {
+        return rays[index];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if the rays point in the same octant, so they can traverse the structures together
+     * @return true if all rays have the same direction signs, false otherwise
+     */
+    public boolean isCoherent() {
+        return coherent;
+    }
+
+    @Override
+    public String toString() {
+        return "RayPacket {" +
+                "\n\tsize: " + size +
+                ",\n\tcoherent: " + coherent +
+                "\n\t}";
+    }
+}
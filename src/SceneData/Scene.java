@@ -1,5 +1,6 @@
 package SceneData;
 
+import RayTracing.Acceleration.EAcceleratorType;
 import SceneData.DataTypes.MyColor;
 import SceneData.Light.Light;
 import SceneData.Surface.Surface;
@@ -13,13 +14,19 @@ public class Scene {
     private Camera camera;
     private List<Light> lights;
     private List<Surface> surfaces;
+    private EAcceleratorType acceleratorType;
 
     public Scene(String outputFileName, MyColor backgroundColor, Camera camera, List<Light> lights, List<Surface> surfaces) {
+        this(outputFileName, backgroundColor, camera, lights, surfaces, EAcceleratorType.AUTO);
+    }
+
+    public Scene(String outputFileName, MyColor backgroundColor, Camera camera, List<Light> lights, List<Surface> surfaces, EAcceleratorType acceleratorType) {
         this.outputFileName = outputFileName;
         this.backgroundColor = backgroundColor;
         this.camera = camera;
         this.lights = lights;
         this.surfaces = surfaces;
+        this.acceleratorType = acceleratorType;
     }
 
     public Scene(){
@@ -28,6 +35,7 @@ public class Scene {
         this.camera = new Camera();
         this.lights = new ArrayList<>();
         this.surfaces = new ArrayList<>();
+        this.acceleratorType = EAcceleratorType.AUTO;
     }
 
     public void clear(){
@@ -36,6 +44,22 @@ public class Scene {
         this.camera = new Camera();
         this.lights = new ArrayList<>();
         this.surfaces = new ArrayList<>();
+        this.acceleratorType = EAcceleratorType.AUTO;
+    }
+
+    /**
+     * Creates a snapshot of the scene, that can be changed (e.g. for a frame of an animation) without changing this scene or reading the file again.<br>
+     * The lists of the lights and surfaces are new lists and the surfaces that can be changed (spheres) are copied.
+     * Everything that does not change after reading (camera, lights, meshes with their hierarchies, textures) is shared, so a copy is cheap even with big meshes.
+     * @return the copy of the scene
+     */
+    public Scene copy() {
+        List<Surface> surfacesCopy = new ArrayList<>(surfaces.size());
+        for(Surface surface : surfaces) {
+            surfacesCopy.add(surface.copy());
+        }
+        MyColor backgroundColorCopy = new MyColor(backgroundColor.getR(), backgroundColor.getG(), backgroundColor.getB());
+        return new Scene(outputFileName, backgroundColorCopy, camera, new ArrayList<>(lights), surfacesCopy, acceleratorType);
     }
 
     public Camera getCamera() {
@@ -62,12 +86,21 @@ public class Scene {
         return lights;
     }
 
+    /**
+     * Returns the acceleration structure the scene asks for (AUTO if the ray tracer should choose one)
+     * @return the acceleration structure type of the scene
+     */
+    public EAcceleratorType getAcceleratorType() {
+        return acceleratorType;
+    }
+
     @Override
     public String toString() {
         String returnString = "Scene {" +
                 "\noutputFileName: '" + outputFileName + '\'' +
                 ";\nbackgroundColor: " + backgroundColor +
                 ";\ncamera: " + camera +
+                ";\nacceleratorType: " + acceleratorType +
                 ";\nlights = [";
 
         for(Light light : lights){
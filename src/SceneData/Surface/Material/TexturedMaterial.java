@@ -1,40 +1,46 @@
 package SceneData.Surface.Material;
 
 import Reader_Writer.PNGConverter;
+import Reader_Writer.TextureCache;
 import SceneData.DataTypes.MyColor;
 
+/**
+ * Material with the colors of a texture image.<br>
+ * The image is only decoded when a color is needed the first time (so textures of materials no ray hits are never read)
+ * and it is shared with all other materials with the same texture file (see {@link TextureCache}).<br>
+ * Missing files and broken headers are reported when the material is created, broken pixel data only when the image is decoded,
+ * then the render stops with the {@link Reader_Writer.Exceptions.PNGConverterException PNGConverterException} of the texture.
+ */
 public class TexturedMaterial extends Material {
     private static final PNGConverter pngConverter = new PNGConverter();
     private String texturePath;
-    private MyColor[][] textureImage;
-    private int width;
-    private int height;
+    private volatile MyColor[][] textureImage;
 
     public TexturedMaterial(String texture, Phong phong, float reflectance, float transmittance, float refraction) {
         super(phong, reflectance, transmittance, refraction);
         this.texturePath = texture;
 
-        //Read the texture image and store it in a 2D array
-        textureImage = pngConverter.readPNG(texturePath);
-        //set the width and height of the texture
-        height = textureImage.length;
-        width = textureImage[0].length;
+        //only check the file and the header of the image here (so a broken texture is reported while the scene is read),
+        //the pixels are decoded when the texture is used the first time
+        pngConverter.checkPNG(texturePath);
     }
 
     public TexturedMaterial(){
         super();
         this.texturePath = "";
-        this.width = 0;
-        this.height = 0;
     }
 
     @Override
     public MyColor getColor(float u, float v) {
         //If no texture is given, return black
-        if(texturePath.equals("") || textureImage == null){
+        if(texturePath.equals("")){
             return new MyColor();
         }
 
+        MyColor[][] image = getTextureImage();
+        int height = image.length;
+        int width = image[0].length;
+
         if(u > 1){
             u %= 1;
         }
@@ -45,7 +51,21 @@ public class TexturedMaterial extends Material {
         int y = (int) (v * (height-1));
         int x = (int) (u * (width-1));
 
-        return textureImage[y][x];
+        return image[y][x];
+    }
+
+    /**
+     * Returns the texture image, it is taken from the texture cache when it is used the first time
+     * (several render threads may do that at once, they all get the same image)
+     * @return the texture image
+     */
+    private MyColor[][] getTextureImage() {
+        MyColor[][] image = textureImage;
+        if(image == null){
+            image = TextureCache.getTexture(texturePath);
+            textureImage = image;
+        }
+        return image;
     }
 
     @Override
@@ -55,4 +75,4 @@ public class TexturedMaterial extends Material {
                 ", " + super.toString() +
                 "\n\t\t\t}";
     }
-}
\ No newline at end of file
+}
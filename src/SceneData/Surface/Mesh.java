@@ -1,18 +1,66 @@
 package SceneData.Surface;
 
+import RayTracing.Acceleration.BVH;
+import RayTracing.Acceleration.BVHStatistics;
+import RayTracing.Acceleration.EBuildMode;
+import RayTracing.Acceleration.PrimitiveIntersector;
+import RayTracing.Acceleration.PrimitiveOccluder;
 import SceneData.DataTypes.*;
 import SceneData.Surface.Material.Material;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class Mesh extends Surface{
     private String meshName;
-    private List<Triangle> triangles;
+    private TriangleArrays triangles;
+    private BVH bvh;
+    //the leaves are tested as a whole, so the triangles of a leaf can be tested at once
+    private final PrimitiveIntersector triangleIntersector = new PrimitiveIntersector() {
+        @Override
+        public boolean intersect(int index, Ray ray, Hit hit) {
+            return intersect(index, index + 1, ray, hit);
+        }
+
+        @Override
+        public boolean intersect(int start, int end, Ray ray, Hit hit) {
+            int closest = triangles.intersect(start, end, ray, ray.getTMin(), hit);
+            if(closest != -1) {
+                hit.setPrimitive(Mesh.this, closest);
+                return true;
+            }
+            return false;
+        }
+    };
+    private final PrimitiveOccluder triangleOccluder = new PrimitiveOccluder() {
+        @Override
+        public boolean occluded(int index, Ray ray) {
+            return occluded(index, index + 1, ray);
+        }
+
+        @Override
+        public boolean occluded(int start, int end, Ray ray) {
+            return triangles.occluded(start, end, ray, ray.getTMin(), ray.getTMax());
+        }
+    };
 
     public Mesh(String meshName, List<Triangle> triangles, Material material) {
+        this(meshName, triangles, material, EBuildMode.SAH);
+    }
+
+    public Mesh(String meshName, List<Triangle> triangles, Material material, EBuildMode buildMode) {
         super(material);
         this.meshName = meshName;
-        this.triangles = triangles;
+
+        //build the bounding volume hierarchy over the triangles, so not every triangle has to be checked for every ray
+        List<BoundingBox> triangleBounds = new ArrayList<>(triangles.size());
+        for(Triangle triangle : triangles) {
+            triangleBounds.add(triangle.getBoundingBox());
+        }
+        //the leaves are filled up to the number of triangles that are tested at once
+        this.bvh = new BVH(triangleBounds, buildMode, TriangleArrays.getWidth());
+        //store the precomputed triangle data in the order of the leaves, so the triangles of a leaf are next to each other
+        this.triangles = new TriangleArrays(triangles, bvh.getPrimitiveOrder());
     }
 
     /**
@@ -28,32 +76,75 @@ public class Mesh extends Surface{
     }
 
     /**
-     * Checks wether the ray intersects with at least one triangle of the mesh or not. If so, the closest intersection is returned, otherwise an intersection with t = -1 is returned.
-     * @param ray the ray to check
-     * @param epsilon the value, which the intersection point has to be greater than(used to avoid self-intersection)
-     * @return the intersection of the ray and the mesh
+     * Returns the build time and node/leaf statistics of the bounding volume hierarchy of the mesh
+     * @return the statistics of the hierarchy
+     */
+    public BVHStatistics getBVHStatistics() {
+        return bvh.getStatistics();
+    }
+
+    /**
+     * Returns if the triangles of a leaf are tested at once with the Vector API (jdk.incubator.vector has to be added to the JVM)
+     * @return true if the Vector API is used, false if the triangles are tested one after the other
+     */
+    public static boolean usesVectorAPI() {
+        return TriangleArrays.usesVectorAPI();
+    }
+
+    /**
+     * Returns the box around all triangles of the mesh
+     * @return the bounding box of the mesh
      */
     @Override
-    public Intersection intersect(Ray ray, float epsilon) {
-        TriangleIntersection closestIntersection = new TriangleIntersection(Float.MAX_VALUE);
+    public BoundingBox getBoundingBox() {
+        return bvh.getBounds();
+    }
 
-        //check all triangles of the mesh and save the closest valid intersection (t > -1 && t < current smallest intersection)
-        for(Triangle triangle : triangles) {
-            TriangleIntersection currIntersection = triangle.intersect(ray, epsilon);
-            if(currIntersection.hasIntersection() && currIntersection.getT() < closestIntersection.getT()) {
-                closestIntersection = currIntersection;
-            }
-        }
+    /**
+     * Finds the closest triangle the ray intersects with (closer than the hit found so far) with the bounding volume hierarchy,
+     * only the triangles in the leaves the ray passes through are checked
+     * @param ray the ray to check (only hits after tMin of the ray count)
+     * @param hit the closest hit so far, updated with the closest triangle if it is closer
+     * @return true if a triangle closer than the previous hit was found, false otherwise
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return bvh.intersect(ray, hit, triangleIntersector);
+    }
 
-        //if there is an intersection, set the color of the intersection and return it
-        if(closestIntersection.hasIntersection() && closestIntersection.getT() != Float.MAX_VALUE) {
-            //use the texture coordinates of the intersection to get the color of the intersection
-            closestIntersection.setColor(getColor(closestIntersection.getU(), closestIntersection.getV(), 0));
-            return closestIntersection;
-        }
+    /**
+     * Finds the closest triangle of every ray of the packet, the rays traverse the bounding volume hierarchy of the mesh together
+     * @param packet the rays to check
+     * @param firstRay the first ray of the packet to check, the rays before are skipped
+     * @param hits the closest hit of every ray so far, updated with the closest triangle if it is closer
+     * @return true if a triangle closer than the previous hit was found for any of the rays, false otherwise
+     */
+    @Override
+    public boolean intersect(RayPacket packet, int firstRay, Hit[] hits) {
+        return bvh.intersect(packet, firstRay, hits, triangleIntersector);
+    }
 
-        //if there is no intersection, return an intersection with t = -1
-        return new TriangleIntersection(-1);
+    /**
+     * Calculates the intersection of the hit triangle and uses its texture coordinates to get the color of the intersection
+     * @param ray the ray that hit the mesh
+     * @param hit the hit on the mesh, the primitive is the index of the triangle
+     * @return the intersection of the ray and the mesh
+     */
+    @Override
+    public Intersection getIntersection(Ray ray, Hit hit) {
+        TriangleIntersection intersection = triangles.getIntersection(hit.getPrimitiveId(), ray, hit);
+        intersection.setColor(getColor(intersection.getU(), intersection.getV(), 0));
+        return intersection;
+    }
+
+    /**
+     * Checks if any triangle of the mesh blocks the ray between tMin and tMax of the ray, the traversal of the hierarchy stops at the first one found
+     * @param ray the ray to check
+     * @return true if a triangle is hit between tMin and tMax, false otherwise
+     */
+    @Override
+    public boolean occluded(Ray ray) {
+        return bvh.occluded(ray, triangleOccluder);
     }
 
     @Override
@@ -62,8 +153,8 @@ public class Mesh extends Surface{
                 "\n\t\tmeshName: '" + meshName + '\'' +
                 ",\n\t\ttriangles: [";
 
-        for(Triangle triangle : triangles){
-            returnString += "\n    " + triangle + ",";
+        for(int i = 0; i < triangles.size(); i++){
+            returnString += "\n    " + triangles.toString(i) + ",";
         }
         returnString += "\n];" +
                 "," + super.toString() +
@@ -3,10 +3,16 @@ package SceneData.Surface;
 import SceneData.DataTypes.*;
 import SceneData.Surface.Material.Material;
 
+/**
+ * Sphere, that can move linearly while the shutter is open (motion blur):
+ * at shutter open (time 0) it is at its origin, at shutter close (time 1) at origin + motion.
+ * Every ray is tested against the sphere at the position of its own time.
+ */
 public class Sphere extends Surface {
     private float radius;
     private float radiusSquared;
     private MyPoint origin;
+    private MyVector motion = new MyVector();
 
     public Sphere(float radius, MyPoint origin, Material material) {
         super(material);
@@ -32,67 +38,124 @@ public class Sphere extends Surface {
         this.origin = origin;
     }
 
+    /**
+     * Returns the position of the sphere at a time between shutter open and close
+     * @param time the time (0 = shutter open, 1 = shutter close)
+     * @return the center of the sphere at that time
+     */
+    public MyPoint getOrigin(float time) {
+        return new MyPoint(
+                origin.getX() + motion.getX() * time,
+                origin.getY() + motion.getY() * time,
+                origin.getZ() + motion.getZ() * time
+        );
+    }
+
+    /**
+     * Returns how far the sphere moves from shutter open to shutter close
+     * @return the motion vector, (0, 0, 0) if the sphere does not move
+     */
+    public MyVector getMotion() {
+        return motion;
+    }
+
+    public void setMotion(MyVector motion) {
+        this.motion = motion;
+    }
+
+    public boolean isMoving() {
+        return !motion.isNullVector();
+    }
+
     public float getRadiusSquared() {
         return radiusSquared;
     }
 
     /**
-     * Checks wether the ray intersects the sphere or not.
-     * @param ray the ray to check
-     * @param epsilon the value, which the intersection point has to be greater than(used to avoid self-intersection)
-     * @return the intersection(t, point, normal) of the ray and the sphere
+     * Returns a new sphere with the same radius, origin, motion and material, that can be changed without changing this sphere
+     * @return the copy of the sphere
      */
     @Override
-    public Intersection intersect(Ray ray, float epsilon) {
-        MyVector rayDirection = ray.getDirection().getNormalized();
-        MyPoint rayOrigin = ray.getOrigin();
+    public Sphere copy() {
+        Sphere copy = new Sphere(radius, new MyPoint(origin.getX(), origin.getY(), origin.getZ()), material);
+        copy.setMotion(new MyVector(motion.getX(), motion.getY(), motion.getZ()));
+        return copy;
+    }
 
-        //calculate sphereCenter, a, b, c for the quadratic equation
-        MyVector sphereCenter = MyPoint.subtract(rayOrigin, getOrigin());
-        float a = MyVector.dotProduct(rayDirection, rayDirection);
-        float b = 2 * MyVector.dotProduct(rayDirection, sphereCenter);
-        float c = MyVector.dotProduct(sphereCenter, sphereCenter) - getRadiusSquared();
+    /**
+     * Returns the box around the sphere (origin +- radius on every axis), of a moving sphere around all its positions while the shutter is open
+     * @return the bounding box of the sphere
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        MyPoint end = getOrigin(1.0f);
+        return new BoundingBox(
+                new MyPoint(Math.min(origin.getX(), end.getX()) - radius, Math.min(origin.getY(), end.getY()) - radius, Math.min(origin.getZ(), end.getZ()) - radius),
+                new MyPoint(Math.max(origin.getX(), end.getX()) + radius, Math.max(origin.getY(), end.getY()) + radius, Math.max(origin.getZ(), end.getZ()) + radius)
+        );
+    }
 
-        //solve the quadratic equation, if there are no solutions, return -1 = no intersection
-        QuadraticSolution solution = solveQuadratic(a,b,c);
-        if (!solution.hasSolution()){
-            return new Intersection(-1);
+    /**
+     * Checks wether the ray intersects the sphere (after tMin of the ray) closer than the hit found so far, only solves the quadratic equation.
+     * @param ray the ray to check
+     * @param hit the closest hit so far, updated if the sphere is closer
+     * @return true if the sphere is closer than the previous hit, false otherwise
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        float t = getNearestRoot(ray, ray.getTMin());
+        if(t < 0 || t >= hit.getT()) {
+            return false;
         }
 
-        //the two solutions of the quadratic equation
-        float t0 = solution.getT0();
-        float t1 = solution.getT1();
-
-        float t = t0; //use the smaller t value
-
-        //check if the two intersection points are valid, and choose the smaller once, otherwise return -1 = no intersection
-        if (t < epsilon) {
-            t = t1; // if t is negative, we try t1
-            if (t < epsilon) {
-                return new Intersection(-1); // both t values are negative
-            }
-        }
+        hit.setDistance(t, 0, 0);
+        hit.setPrimitive(this, 0);
+        return true;
+    }
 
-        //set the t of the ray
-        ray.setT(t);
+    /**
+     * Calculates the intersection point, the normal and the color of a hit on the sphere
+     * @param ray the ray that hit the sphere
+     * @param hit the hit on the sphere
+     * @return the intersection(t, point, normal, color) of the ray and the sphere
+     */
+    @Override
+    public Intersection getIntersection(Ray ray, Hit hit) {
+        MyVector rayDirection = ray.getDirection();
+        float t = hit.getT();
 
         //get point of intersection
         //P = O + tD
-        MyPoint intersectionPoint = MyPoint.plus(rayOrigin, rayDirection.scale(ray.getT()));
-        //get normal at intersection point
+        MyPoint rayOrigin = ray.getOrigin();
+        MyPoint intersectionPoint = new MyPoint(
+                rayOrigin.getX() + rayDirection.getX() * t,
+                rayOrigin.getY() + rayDirection.getY() * t,
+                rayOrigin.getZ() + rayDirection.getZ() * t
+        );
+        //get normal at intersection point, with the center at the time of the ray
         //N = (P - C)
-        MyVector normal = MyPoint.subtract(intersectionPoint, getOrigin());
+        MyVector normal = MyPoint.subtract(intersectionPoint, getOrigin(ray.getTime()));
         normal.normalize();
 
         Intersection intersection = new Intersection(t, normal, intersectionPoint);
 
-        //calculate the vector between the intersection point and the origin of the sphere
-        MyVector d = MyPoint.subtract(intersection.getPoint(), getOrigin()).getNormalized();
+        //the normalized vector between the intersection point and the origin of the sphere is the normal,
         //calculate the color of the intersection point and save it in the intersection
-        intersection.setColor(this.getColor(d.getX(), d.getY(), d.getZ()));
+        intersection.setColor(this.getColor(normal.getX(), normal.getY(), normal.getZ()));
         return intersection;
     }
 
+    /**
+     * Checks if the ray hits the sphere between tMin and tMax of the ray, only solves the quadratic equation (no normal, point or color)
+     * @param ray the ray to check
+     * @return true if one of the two intersections lies between tMin and tMax, false otherwise
+     */
+    @Override
+    public boolean occluded(Ray ray) {
+        float t = getNearestRoot(ray, ray.getTMin());
+        return t >= 0 && t < ray.getTMax();
+    }
+
     /**
      * Calculates the color of the sphere at the given point (only important for texture mapping, otherwise the static color of the material is returned).</br>
      * x, y, z values are from the vector between the intersection point and the origin of the sphere.
@@ -111,20 +174,37 @@ public class Sphere extends Surface {
     }
 
     /**
-     * Solves a quadratic equation of the form ax^2 + bx + c = 0
+     * Solves the quadratic equation of the ray and the sphere (ax^2 + bx + c = 0) and returns the smaller solution that is not below tMin
      * used the code from https://www.scratchapixel.com/lessons/3d-basic-rendering/minimal-ray-tracer-rendering-simple-shapes/ray-sphere-intersection.html
      *
-     * @return the solution of the quadratic equation as a QuadraticSolution object (which contains t0 and t1, and a boolean saying if the equation has a solution)
+     * @param ray the ray to intersect with
+     * @param tMin the value, which the intersection point has to be greater than(used to avoid self-intersection)
+     * @return the distance to the nearest intersection after tMin, or -1 if there is none
      */
-    private QuadraticSolution solveQuadratic(float a, float b, float c){
-        float x0, x1;
+    private float getNearestRoot(Ray ray, float tMin) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float directionX = rayDirection.getX();
+        float directionY = rayDirection.getY();
+        float directionZ = rayDirection.getZ();
+
+        //calculate sphereCenter (at the time of the ray), a, b, c for the quadratic equation
+        float time = ray.getTime();
+        float centerX = rayOrigin.getX() - (origin.getX() + motion.getX() * time);
+        float centerY = rayOrigin.getY() - (origin.getY() + motion.getY() * time);
+        float centerZ = rayOrigin.getZ() - (origin.getZ() + motion.getZ() * time);
+        float a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        float b = 2 * (directionX * centerX + directionY * centerY + directionZ * centerZ);
+        float c = centerX * centerX + centerY * centerY + centerZ * centerZ - radiusSquared;
+
+        //if there are no solutions, return -1 = no intersection
+        float t0, t1;
         float disc = b * b - 4 * a * c;
-
         if (disc < 0){
-            return new QuadraticSolution(0, 0, false);
+            return -1;
         }
         else if (disc == 0){
-            x0 = x1 = - 0.5f * b / a;
+            t0 = t1 = - 0.5f * b / a;
         }
         else {
             float q;
@@ -136,17 +216,21 @@ public class Sphere extends Surface {
                 q = -0.5f * (b - (float)Math.sqrt(disc));
             }
 
-            x0 = q / a;
-            x1 = c / q;
+            t0 = q / a;
+            t1 = c / q;
         }
 
-        if (x0 > x1){
-            float temp = x0;
-            x0 = x1;
-            x1 = temp;
+        if (t0 > t1){
+            float temp = t0;
+            t0 = t1;
+            t1 = temp;
         }
 
-        return new QuadraticSolution(x0, x1, true);
+        //use the smaller t value, if it is too close try the bigger one
+        if (t0 >= tMin) {
+            return t0;
+        }
+        return t1 >= tMin ? t1 : -1;
     }
 
     @Override
@@ -154,6 +238,7 @@ public class Sphere extends Surface {
         return "Sphere {" +
                 "\n\t\tradius: " + radius +
                 ",\n\t\tposition: " + origin +
+                ",\n\t\tmotion: " + motion +
                 "," + super.toString() +
                 "\n\t}";
     }
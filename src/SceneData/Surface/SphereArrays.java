@@ -0,0 +1,182 @@
+package SceneData.Surface;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
+
+import java.util.List;
+
+/**
+ * The surfaces of an acceleration structure in a given order (e.g. the leaf order of a hierarchy or the cells of a grid),
+ * with the values of the spheres among them in structure-of-arrays layout: one float array per value (center, motion, squared radius).<br>
+ * If the Vector API (jdk.incubator.vector) is available, ranges of spheres (e.g. a leaf) are tested several at once by {@link SphereVectorIntersector},
+ * otherwise and for ranges with other surfaces every surface is tested on its own.<br>
+ * The values are taken when the arrays are created, like the bounding boxes of an acceleration structure, so the spheres must not change while the arrays are used.
+ */
+public final class SphereArrays {
+    /** the vector intersector is only loaded if the module is there, the scalar test is the fallback */
+    private static final boolean USE_VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && SphereVectorIntersector.isSupported();
+    /** number of spheres tested at once */
+    private static final int WIDTH = USE_VECTOR_API ? SphereVectorIntersector.getLaneCount() : 1;
+    /** ranges with less spheres than this (e.g. most cells of a grid) are tested one after the other, the vector would be mostly empty */
+    private static final int MIN_VECTOR_RANGE = Math.max(3, WIDTH / 2 + 1);
+
+    private final Surface[] surfaces;
+    /** for every position the position after the spheres that follow each other from there on (the position itself if it is no sphere) */
+    private final int[] sphereRunEnd;
+
+    //package-private, so SphereVectorIntersector can load the values of several spheres at once (0 for other surfaces)
+    final float[] centerX;
+    final float[] centerY;
+    final float[] centerZ;
+    final float[] motionX;
+    final float[] motionY;
+    final float[] motionZ;
+    final float[] radiusSquared;
+
+    /**
+     * Copies the values of the spheres in the order of the list
+     * @param surfaces the surfaces, e.g. in the leaf order of a hierarchy
+     */
+    public SphereArrays(List<Surface> surfaces) {
+        this(surfaces, null);
+    }
+
+    /**
+     * Copies the values of the spheres in the given order
+     * @param surfaces the surfaces of the structure
+     * @param order the index of the surface at every position (e.g. the surfaces of all cells of a grid one after the other), null for the order of the list
+     */
+    public SphereArrays(List<Surface> surfaces, int[] order) {
+        int size = order != null ? order.length : surfaces.size();
+        //the last vector can read past the end, the extra values are ignored
+        int capacity = size + WIDTH - 1;
+        this.surfaces = new Surface[size];
+        sphereRunEnd = new int[size];
+        centerX = new float[capacity];
+        centerY = new float[capacity];
+        centerZ = new float[capacity];
+        motionX = new float[capacity];
+        motionY = new float[capacity];
+        motionZ = new float[capacity];
+        radiusSquared = new float[capacity];
+
+        for(int i = 0; i < size; i++) {
+            Surface surface = surfaces.get(order != null ? order[i] : i);
+            this.surfaces[i] = surface;
+            if(surface instanceof Sphere sphere) {
+                centerX[i] = sphere.getOrigin().getX();
+                centerY[i] = sphere.getOrigin().getY();
+                centerZ[i] = sphere.getOrigin().getZ();
+                motionX[i] = sphere.getMotion().getX();
+                motionY[i] = sphere.getMotion().getY();
+                motionZ[i] = sphere.getMotion().getZ();
+                radiusSquared[i] = sphere.getRadiusSquared();
+            }
+        }
+        for(int i = size - 1; i >= 0; i--) {
+            sphereRunEnd[i] = !(this.surfaces[i] instanceof Sphere) ? i : (i + 1 < size ? sphereRunEnd[i + 1] : size);
+        }
+    }
+
+    /**
+     * Returns if ranges of spheres are tested with the Vector API
+     * @return true if the Vector API is used, false if every sphere is tested on its own
+     */
+    public static boolean usesVectorAPI() {
+        return USE_VECTOR_API;
+    }
+
+    /**
+     * Returns the number of spheres that are tested at once, the leaves of a hierarchy should be filled up to it
+     * @return the number of lanes of the Vector API, or 1 if the spheres are tested one after the other
+     */
+    public static int getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Checks if the range can be tested with the Vector API: it is long enough and has only spheres
+     */
+    private boolean isVectorRange(int start, int end) {
+        return USE_VECTOR_API && end - start >= MIN_VECTOR_RANGE && sphereRunEnd[start] >= end;
+    }
+
+    /**
+     * Finds the closest of the surfaces from start to end (exclusive) the ray hits after tMin of the ray and closer than the hit found so far,
+     * the same hit as testing the surfaces one after the other with {@link Surface#intersect(Ray, Hit)}
+     * @param start the position of the first surface
+     * @param end the position after the last surface
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far, updated if a surface of the range is closer
+     * @return true if a surface of the range is closer than the previous hit, false otherwise
+     */
+    public boolean intersect(int start, int end, Ray ray, Hit hit) {
+        if(isVectorRange(start, end)) {
+            int closest = SphereVectorIntersector.intersect(this, start, end, ray, hit);
+            if(closest < 0) {
+                return false;
+            }
+            hit.setPrimitive(surfaces[closest], 0);
+            return true;
+        }
+
+        boolean found = false;
+        for(int i = start; i < end; i++) {
+            if(surfaces[i].intersect(ray, hit)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest hits of the rays of a packet from firstRay on with the surfaces from start to end (exclusive),
+     * ray by ray for a range of spheres, otherwise surface by surface so the packet stays together inside the surfaces (e.g. the hierarchy of a mesh)
+     * @param start the position of the first surface
+     * @param end the position after the last surface
+     * @param packet the rays to check
+     * @param firstRay the first ray of the packet that reached the range, the rays before are skipped
+     * @param hits the closest hit of every ray so far (same index as in the packet)
+     * @return true if a surface of the range is closer than the previous hit for any of the rays, false otherwise
+     */
+    public boolean intersect(int start, int end, RayPacket packet, int firstRay, Hit[] hits) {
+        boolean found = false;
+        if(isVectorRange(start, end)) {
+            for(int i = firstRay; i < packet.getSize(); i++) {
+                if(intersect(start, end, packet.getRay(i), hits[i])) {
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        for(int i = start; i < end; i++) {
+            if(surfaces[i].intersect(packet, firstRay, hits)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks if any of the surfaces from start to end (exclusive) blocks the ray between tMin and tMax of the ray
+     * @param start the position of the first surface
+     * @param end the position after the last surface
+     * @param ray the ray to check
+     * @return true if a surface of the range is hit, false otherwise
+     */
+    public boolean occluded(int start, int end, Ray ray) {
+        if(isVectorRange(start, end)) {
+            return SphereVectorIntersector.occluded(this, start, end, ray);
+        }
+
+        for(int i = start; i < end; i++) {
+            if(surfaces[i].occluded(ray)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package SceneData.Surface;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
+import SceneData.DataTypes.Ray;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Ray-sphere test of several spheres of {@link SphereArrays} at once with the Vector API (jdk.incubator.vector).<br>
+ * Every lane is one sphere, so with AVX2 8 spheres (a whole leaf) are tested by the same instructions.
+ * The arrays are padded to whole vectors, the lanes after the end of the range are loaded but never accepted.
+ * The operations are done in the same order as in the quadratic equation of {@link Sphere}, both branches are calculated in every lane
+ * and the lanes take the one the scalar test would take, so both find exactly the same hits.<br><br>
+ * Only loaded if the module is available (the JVM has to be started with --add-modules jdk.incubator.vector).
+ */
+final class SphereVectorIntersector {
+    /** the leaves have up to 8 spheres, wider vectors (AVX-512) would mostly test empty lanes */
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED.length() > 8 ? FloatVector.SPECIES_256 : FloatVector.SPECIES_PREFERRED;
+
+    /** the distances of a test without any hit */
+    private static final FloatVector MISSED = FloatVector.broadcast(SPECIES, Float.NaN);
+
+    private SphereVectorIntersector() {
+    }
+
+    /**
+     * Checks if the vectors of the CPU are wide enough to be faster than testing one sphere after the other
+     * @return true if a vector has at least 4 lanes, false otherwise
+     */
+    static boolean isSupported() {
+        return SPECIES.length() >= 4;
+    }
+
+    static int getLaneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Same as {@link SphereArrays#intersect(int, int, Ray, Hit)} for a range of spheres, testing SPECIES.length() spheres per step
+     * @return the position of the closest sphere of the range if it is closer than the previous hit (the t is saved in the hit), -1 otherwise
+     */
+    static int intersect(SphereArrays spheres, int start, int end, Ray ray, Hit hit) {
+        int closest = -1;
+
+        for(int i = start; i < end; i += SPECIES.length()) {
+            FloatVector distances = test(spheres, i, SPECIES.indexInRange(i, end), ray);
+            VectorMask<Float> accepted = distances.compare(VectorOperators.LT, hit.getT());
+            if(!accepted.anyTrue()) {
+                continue;
+            }
+
+            //the closest hit of the lanes, on equal distances the first sphere wins like in the scalar test
+            float t = distances.reduceLanes(VectorOperators.MIN, accepted);
+            int lane = distances.compare(VectorOperators.EQ, t).and(accepted).firstTrue();
+            hit.setDistance(t, 0, 0);
+            closest = i + lane;
+        }
+        return closest;
+    }
+
+    /**
+     * Same as {@link SphereArrays#occluded(int, int, Ray)} for a range of spheres, testing SPECIES.length() spheres per step
+     */
+    static boolean occluded(SphereArrays spheres, int start, int end, Ray ray) {
+        for(int i = start; i < end; i += SPECIES.length()) {
+            if(test(spheres, i, SPECIES.indexInRange(i, end), ray).compare(VectorOperators.LT, ray.getTMax()).anyTrue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solves the quadratic equation of the ray and the spheres from position i on, one per lane
+     * @param range the lanes that belong to the tested range
+     * @return the nearest t after tMin of the ray for every lane, NaN for the lanes whose sphere is not hit
+     * (NaN is never smaller than a maximum distance, so a comparison with it gives the accepted lanes)
+     */
+    private static FloatVector test(SphereArrays spheres, int i, VectorMask<Float> range, Ray ray) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float directionX = rayDirection.getX();
+        float directionY = rayDirection.getY();
+        float directionZ = rayDirection.getZ();
+        float time = ray.getTime();
+        float tMin = ray.getTMin();
+
+        //vector from the sphere center (at the time of the ray) to the ray origin
+        FloatVector centerX = FloatVector.broadcast(SPECIES, rayOrigin.getX())
+                .sub(FloatVector.fromArray(SPECIES, spheres.centerX, i).add(FloatVector.fromArray(SPECIES, spheres.motionX, i).mul(time)));
+        FloatVector centerY = FloatVector.broadcast(SPECIES, rayOrigin.getY())
+                .sub(FloatVector.fromArray(SPECIES, spheres.centerY, i).add(FloatVector.fromArray(SPECIES, spheres.motionY, i).mul(time)));
+        FloatVector centerZ = FloatVector.broadcast(SPECIES, rayOrigin.getZ())
+                .sub(FloatVector.fromArray(SPECIES, spheres.centerZ, i).add(FloatVector.fromArray(SPECIES, spheres.motionZ, i).mul(time)));
+
+        //a is the same for all spheres, b and c per lane
+        float a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        FloatVector b = centerX.mul(directionX).add(centerY.mul(directionY)).add(centerZ.mul(directionZ)).mul(2.0f);
+        FloatVector c = centerX.mul(centerX).add(centerY.mul(centerY)).add(centerZ.mul(centerZ))
+                .sub(FloatVector.fromArray(SPECIES, spheres.radiusSquared, i));
+
+        FloatVector disc = b.mul(b).sub(c.mul(4 * a));
+        VectorMask<Float> valid = range.andNot(disc.compare(VectorOperators.LT, 0.0f));
+        //most tests miss all spheres, the roots are only calculated if one of them is hit
+        if(!valid.anyTrue()) {
+            return MISSED;
+        }
+
+        //q with the sign of b (the numerically stable root), one root for a discriminant of 0
+        FloatVector sqrtDisc = disc.sqrt();
+        FloatVector q = b.sub(sqrtDisc).mul(-0.5f).blend(b.add(sqrtDisc).mul(-0.5f), b.compare(VectorOperators.GT, 0.0f));
+        VectorMask<Float> oneRoot = disc.compare(VectorOperators.EQ, 0.0f);
+        FloatVector singleRoot = b.mul(-0.5f).div(a);
+        FloatVector t0 = q.div(a).blend(singleRoot, oneRoot);
+        FloatVector t1 = c.div(q).blend(singleRoot, oneRoot);
+
+        VectorMask<Float> swap = t0.compare(VectorOperators.GT, t1);
+        FloatVector near = t0.blend(t1, swap);
+        FloatVector far = t1.blend(t0, swap);
+
+        //use the nearer t, if it is too close the farther one
+        VectorMask<Float> nearValid = near.compare(VectorOperators.GE, tMin);
+        VectorMask<Float> farValid = far.compare(VectorOperators.GE, tMin);
+        FloatVector t = far.blend(near, nearValid);
+        return MISSED.blend(t, valid.and(nearValid.or(farValid)));
+    }
+}
@@ -1,10 +1,13 @@
 package SceneData.Surface;
 
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.Hit;
 import SceneData.DataTypes.MyColor;
 import SceneData.DataTypes.Intersection;
 import SceneData.DataTypes.MyMatrix;
 import SceneData.Surface.Material.Material;
 import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.RayPacket;
 
 public abstract class Surface {
     protected Material material;
@@ -20,11 +23,77 @@ public abstract class Surface {
         return material;
     }
 
+    /**
+     * Calculates the full intersection (t, point, normal, color) of the ray and the surface between tMin and tMax of the ray
+     * @param ray the ray to check
+     * @return the intersection of the ray and the surface, t = -1 if there is none
+     */
     public Intersection intersect(Ray ray) {
-        return intersect(ray, 0.0f);
+        Hit hit = new Hit(ray.getTMax());
+        if(!intersect(ray, hit)) {
+            return new Intersection(-1);
+        }
+        return getIntersection(ray, hit);
     }
 
-    public abstract Intersection intersect(Ray ray, float epsilon);
+    /**
+     * Distance test of the surface: checks if the ray hits the surface after tMin of the ray and closer than the hit found so far,
+     * and if so saves the distance, the surface and the primitive in the hit. No normal, point or color is calculated.
+     * @param ray the ray to check
+     * @param hit the closest hit so far
+     * @return true if the surface is closer than the previous hit, false otherwise
+     */
+    public abstract boolean intersect(Ray ray, Hit hit);
+
+    /**
+     * Distance test of the surface for the rays of a packet from firstRay on, ray by ray by default.<br>
+     * Surfaces with an own acceleration structure (meshes) let the rays traverse it together.
+     * @param packet the rays to check
+     * @param firstRay the first ray of the packet to check, the rays before are skipped
+     * @param hits the closest hit of every ray so far (same index as in the packet)
+     * @return true if the surface is closer than the previous hit for any of the rays, false otherwise
+     */
+    public boolean intersect(RayPacket packet, int firstRay, Hit[] hits) {
+        boolean found = false;
+        for(int i = firstRay; i < packet.getSize(); i++) {
+            if(intersect(packet.getRay(i), hits[i])) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Calculates the intersection (t, point, normal, color) of a hit found by {@link #intersect(Ray, Hit)}.<br>
+     * Only called once per ray, for the closest hit.
+     * @param ray the ray that hit the surface
+     * @param hit the hit on this surface
+     * @return the intersection of the ray and the surface
+     */
+    public abstract Intersection getIntersection(Ray ray, Hit hit);
+
+    /**
+     * Checks if the surface blocks the ray somewhere between tMin and tMax of the ray (any-hit test for shadow rays).<br>
+     * Only the distance is computed, no normal, intersection point or color.
+     * @param ray the ray to check
+     * @return true if the ray hits the surface between tMin and tMax, false otherwise
+     */
+    public abstract boolean occluded(Ray ray);
+
+    /**
+     * Returns the axis aligned box around the whole surface, used by the acceleration structure of the scene
+     * @return the bounding box of the surface
+     */
+    public abstract BoundingBox getBoundingBox();
+
+    /**
+     * Returns a copy of the surface, that can be changed without changing this surface (see {@link SceneData.Scene#copy()}).<br>
+     * Surfaces that can not be changed after they are created (e.g. meshes with their hierarchy) return themselves, so they are shared by all copies.
+     * @return a copy of the surface, or this surface if it can not be changed
+     */
+    public Surface copy() {
+        return this;
+    }
 
     @Override
     public String toString() {
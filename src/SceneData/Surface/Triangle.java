@@ -1,5 +1,7 @@
 package SceneData.Surface;
 
+import SceneData.DataTypes.BoundingBox;
+import SceneData.DataTypes.Hit;
 import SceneData.DataTypes.MyPoint;
 import SceneData.DataTypes.MyVector;
 import SceneData.DataTypes.Ray;
@@ -42,53 +44,173 @@ public class Triangle {
         }
     }
 
+    public MyPoint getA() {
+        return a;
+    }
+
+    public MyPoint getB() {
+        return b;
+    }
+
+    public MyPoint getC() {
+        return c;
+    }
+
+    public MyPoint getATexture() {
+        return a_texture;
+    }
+
+    public MyPoint getBTexture() {
+        return b_texture;
+    }
+
+    public MyPoint getCTexture() {
+        return c_texture;
+    }
+
+    public MyVector getNormal() {
+        return normal;
+    }
+
+    /**
+     * Returns the box around the three points of the triangle
+     * @return the bounding box of the triangle
+     */
+    public BoundingBox getBoundingBox() {
+        BoundingBox bounds = new BoundingBox();
+        bounds.expand(a);
+        bounds.expand(b);
+        bounds.expand(c);
+        return bounds;
+    }
+
     /**
      * Implementation of the Möller-Trumbore algorithm
      * used the code from https://www.scratchapixel.com/lessons/3d-basic-rendering/ray-tracing-rendering-a-triangle/moller-trumbore-ray-triangle-intersection.html
      *
-     * @param ray the ray to intersect with
-     * @param epsilon the minimum distance from the ray origin to the intersection point
+     * @param ray the ray to intersect with (only hits between tMin and tMax of the ray count)
      * @return the intersection object -1 if there is no intersection, the t value of the ray if there is an intersection
      */
-    public TriangleIntersection intersect(Ray ray, float epsilon) {
-        MyVector rayDirection = ray.getDirection().getNormalized();
-        MyPoint rayOrigin = ray.getOrigin();
+    public TriangleIntersection intersect(Ray ray) {
+        Hit hit = new Hit(ray.getTMax());
+        if(!intersect(ray, hit)) {
+            return new TriangleIntersection(-1);
+        }
+        return getIntersection(ray, hit);
+    }
+
+    /**
+     * Distance test of the Möller-Trumbore algorithm: checks if the ray hits the triangle after tMin of the ray and closer than the hit found so far,
+     * and if so saves t and the barycentric coordinates in the hit (the surface and primitive are set by the {@link Mesh})
+     *
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far
+     * @return true if the triangle is closer than the previous hit, false otherwise
+     */
+    public boolean intersect(Ray ray, Hit hit) {
+        return intersect(ray, ray.getTMin(), hit.getT(), hit);
+    }
 
-        MyVector edge1 = MyPoint.subtract(b, a);
-        MyVector edge2 = MyPoint.subtract(c, a);
-        MyVector pvec = MyVector.crossProduct(rayDirection, edge2);
-        float det = MyVector.dotProduct(edge1, pvec);
+    /**
+     * Möller-Trumbore test like {@link #intersect(Ray, Hit)}, but only checks if there is any hit between tMin and tMax of the ray
+     * @param ray the ray to check
+     * @return true if the ray hits the triangle between tMin and tMax, false otherwise
+     */
+    public boolean occluded(Ray ray) {
+        return intersect(ray, ray.getTMin(), ray.getTMax(), null);
+    }
 
-        if(Math.abs(det) < epsilon) {
-            return new TriangleIntersection(-1);
+    /**
+     * Checks if the ray hits the triangle between tMin and tMax
+     * @param ray the ray to intersect with
+     * @param tMin the minimum distance from the ray origin to the intersection point
+     * @param tMax the maximum distance from the ray origin to the intersection point
+     * @param hit the hit t and the barycentric coordinates are saved in (null if only the existence of a hit matters)
+     * @return true if the ray hits the triangle between tMin and tMax, false otherwise
+     */
+    private boolean intersect(Ray ray, float tMin, float tMax, Hit hit) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+
+        //all vectors are kept in primitive values, so no objects are created for every test
+        float directionX = rayDirection.getX();
+        float directionY = rayDirection.getY();
+        float directionZ = rayDirection.getZ();
+
+        //edge1 = b - a, edge2 = c - a
+        float edge1X = b.getX() - a.getX();
+        float edge1Y = b.getY() - a.getY();
+        float edge1Z = b.getZ() - a.getZ();
+        float edge2X = c.getX() - a.getX();
+        float edge2Y = c.getY() - a.getY();
+        float edge2Z = c.getZ() - a.getZ();
+
+        //pvec = direction x edge2
+        float pvecX = directionY * edge2Z - directionZ * edge2Y;
+        float pvecY = directionZ * edge2X - directionX * edge2Z;
+        float pvecZ = directionX * edge2Y - directionY * edge2X;
+        float det = edge1X * pvecX + edge1Y * pvecY + edge1Z * pvecZ;
+
+        if(Math.abs(det) < tMin) {
+            return false;
         }
 
+        //tvec = origin - a
         float invDet = 1 / det;
-        MyVector tvec = MyPoint.subtract(rayOrigin, a);
-        float a_point = MyVector.dotProduct(tvec, pvec) * invDet;
+        float tvecX = rayOrigin.getX() - a.getX();
+        float tvecY = rayOrigin.getY() - a.getY();
+        float tvecZ = rayOrigin.getZ() - a.getZ();
+        float a_point = (tvecX * pvecX + tvecY * pvecY + tvecZ * pvecZ) * invDet;
 
         if (a_point < 0.0 || a_point > 1.0) {
-            return new TriangleIntersection(-1);
+            return false;
         }
 
-        MyVector qvec = MyVector.crossProduct(tvec, edge1);
-        float b_point = invDet * MyVector.dotProduct(rayDirection, qvec);
+        //qvec = tvec x edge1
+        float qvecX = tvecY * edge1Z - tvecZ * edge1Y;
+        float qvecY = tvecZ * edge1X - tvecX * edge1Z;
+        float qvecZ = tvecX * edge1Y - tvecY * edge1X;
+        float b_point = invDet * (directionX * qvecX + directionY * qvecY + directionZ * qvecZ);
 
         if (b_point < 0.0 || b_point > 1.0 || a_point + b_point > 1.0) {
-            return new TriangleIntersection(-1);
+            return false;
         }
 
-        float t = MyVector.dotProduct(edge2, qvec) * invDet;
-        if (t > epsilon) {
-            ray.setT(t);
-            //calculate the texture coordinates for texture mapping
-            float u_texture = (1 - a_point - b_point) * a_texture.getX() + a_point * b_texture.getX() + b_point * c_texture.getX();
-            float v_texture = (1 - a_point - b_point) * a_texture.getY() + a_point * b_texture.getY() + b_point * c_texture.getY();
-
-            return new TriangleIntersection(t, normal, MyPoint.plus(rayOrigin, rayDirection.scale(ray.getT())), u_texture, v_texture);
-        } else {
-            return new TriangleIntersection(-1);
+        float t = (edge2X * qvecX + edge2Y * qvecY + edge2Z * qvecZ) * invDet;
+        if (t > tMin && t < tMax) {
+            if(hit != null) {
+                hit.setDistance(t, a_point, b_point);
+            }
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * Calculates the intersection point and the texture coordinates of a hit on the triangle
+     * @param ray the ray that hit the triangle
+     * @param hit the hit on the triangle (t and barycentric coordinates)
+     * @return the intersection(t, point, normal, u, v) of the ray and the triangle
+     */
+    public TriangleIntersection getIntersection(Ray ray, Hit hit) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float t = hit.getT();
+        float a_point = hit.getU();
+        float b_point = hit.getV();
+
+        //calculate the texture coordinates for texture mapping
+        float u_texture = (1 - a_point - b_point) * a_texture.getX() + a_point * b_texture.getX() + b_point * c_texture.getX();
+        float v_texture = (1 - a_point - b_point) * a_texture.getY() + a_point * b_texture.getY() + b_point * c_texture.getY();
+
+        //P = O + tD
+        MyPoint point = new MyPoint(
+                rayOrigin.getX() + rayDirection.getX() * t,
+                rayOrigin.getY() + rayDirection.getY() * t,
+                rayOrigin.getZ() + rayDirection.getZ() * t
+        );
+
+        return new TriangleIntersection(t, normal, point, u_texture, v_texture);
     }
 
     @Override
@@ -0,0 +1,269 @@
+package SceneData.Surface;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
+import SceneData.DataTypes.Ray;
+import SceneData.DataTypes.TriangleIntersection;
+
+import java.util.List;
+
+/**
+ * The triangles of a {@link Mesh} in structure-of-arrays layout: one float array per value instead of one object per triangle.<br>
+ * For every triangle the first point, the two precomputed edges (b - a and c - a), the normal and the texture coordinates of the three points are stored,
+ * 18 floats (72 bytes) per triangle instead of the 7 point/vector objects of a {@link Triangle}.<br>
+ * The Möller-Trumbore test reads straight from the arrays, so it does not create or follow any objects.<br>
+ * If the Vector API (jdk.incubator.vector) is available, ranges of triangles (the leaves of the hierarchy) are tested
+ * several at once by {@link TriangleVectorIntersector}, otherwise one after the other.
+ */
+final class TriangleArrays {
+    /** ranges with less triangles than this are always tested one after the other */
+    private static final int MIN_VECTOR_RANGE = 3;
+    /** the vector intersector is only loaded if the module is there, the scalar test is the fallback */
+    private static final boolean USE_VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && TriangleVectorIntersector.isSupported();
+    /** number of triangles tested at once */
+    private static final int WIDTH = USE_VECTOR_API ? TriangleVectorIntersector.getLaneCount() : 1;
+
+    private final int size;
+
+    //package-private, so TriangleVectorIntersector can load the values of several triangles at once
+    final float[] pointX;
+    final float[] pointY;
+    final float[] pointZ;
+    final float[] edge1X;
+    final float[] edge1Y;
+    final float[] edge1Z;
+    final float[] edge2X;
+    final float[] edge2Y;
+    final float[] edge2Z;
+    final float[] normalX;
+    final float[] normalY;
+    final float[] normalZ;
+    /** texture coordinates of the points a, b and c: 3 values per triangle */
+    final float[] textureU;
+    final float[] textureV;
+
+    /**
+     * Copies the triangles into the arrays in the given order
+     * @param triangles the triangles of the mesh
+     * @param order the index of the triangle at every position (e.g. the leaf order of the bounding volume hierarchy)
+     */
+    TriangleArrays(List<Triangle> triangles, int[] order) {
+        size = order.length;
+        //the last vector can read past the end, the extra values are ignored
+        int capacity = size + WIDTH - 1;
+        pointX = new float[capacity];
+        pointY = new float[capacity];
+        pointZ = new float[capacity];
+        edge1X = new float[capacity];
+        edge1Y = new float[capacity];
+        edge1Z = new float[capacity];
+        edge2X = new float[capacity];
+        edge2Y = new float[capacity];
+        edge2Z = new float[capacity];
+        normalX = new float[size];
+        normalY = new float[size];
+        normalZ = new float[size];
+        textureU = new float[size * 3];
+        textureV = new float[size * 3];
+
+        for(int i = 0; i < size; i++) {
+            Triangle triangle = triangles.get(order[i]);
+            MyPoint a = triangle.getA();
+            MyPoint b = triangle.getB();
+            MyPoint c = triangle.getC();
+
+            pointX[i] = a.getX();
+            pointY[i] = a.getY();
+            pointZ[i] = a.getZ();
+            edge1X[i] = b.getX() - a.getX();
+            edge1Y[i] = b.getY() - a.getY();
+            edge1Z[i] = b.getZ() - a.getZ();
+            edge2X[i] = c.getX() - a.getX();
+            edge2Y[i] = c.getY() - a.getY();
+            edge2Z[i] = c.getZ() - a.getZ();
+
+            MyVector normal = triangle.getNormal();
+            if(normal != null) {
+                normalX[i] = normal.getX();
+                normalY[i] = normal.getY();
+                normalZ[i] = normal.getZ();
+            }
+
+            //triangles without texture coordinates keep (0, 0) on every point
+            MyPoint[] texturePoints = {triangle.getATexture(), triangle.getBTexture(), triangle.getCTexture()};
+            for(int point = 0; point < 3; point++) {
+                if(texturePoints[point] != null) {
+                    textureU[i * 3 + point] = texturePoints[point].getX();
+                    textureV[i * 3 + point] = texturePoints[point].getY();
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns if ranges of triangles are tested with the Vector API
+     * @return true if the Vector API is used, false if every triangle is tested on its own
+     */
+    static boolean usesVectorAPI() {
+        return USE_VECTOR_API;
+    }
+
+    /**
+     * Returns the number of triangles that are tested at once, the leaves of the hierarchy should be filled up to it
+     * @return the number of lanes of the Vector API, or 1 if the triangles are tested one after the other
+     */
+    static int getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Finds the closest of the triangles from start to end (exclusive) the ray hits between tMin and the hit found so far
+     * @param start the position of the first triangle
+     * @param end the position after the last triangle
+     * @param ray the ray to intersect with
+     * @param tMin the minimum distance from the ray origin to the intersection point
+     * @param hit the closest hit so far, the t and the barycentric coordinates are updated if a closer triangle is found
+     * @return the position of the closest triangle of the range if it is closer than the previous hit, -1 otherwise
+     */
+    int intersect(int start, int end, Ray ray, float tMin, Hit hit) {
+        if(USE_VECTOR_API && end - start >= MIN_VECTOR_RANGE) {
+            return TriangleVectorIntersector.intersect(this, start, end, ray, tMin, hit);
+        }
+
+        int closest = -1;
+        for(int i = start; i < end; i++) {
+            if(intersect(i, ray, tMin, hit.getT(), hit)) {
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Checks if any of the triangles from start to end (exclusive) blocks the ray between tMin and tMax
+     * @param start the position of the first triangle
+     * @param end the position after the last triangle
+     * @param ray the ray to check
+     * @param tMin the minimum distance from the ray origin to the intersection point
+     * @param tMax the maximum distance from the ray origin to the intersection point
+     * @return true if a triangle of the range is hit, false otherwise
+     */
+    boolean occluded(int start, int end, Ray ray, float tMin, float tMax) {
+        if(USE_VECTOR_API && end - start >= MIN_VECTOR_RANGE) {
+            return TriangleVectorIntersector.occluded(this, start, end, ray, tMin, tMax);
+        }
+
+        for(int i = start; i < end; i++) {
+            if(intersect(i, ray, tMin, tMax, null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Implementation of the Möller-Trumbore algorithm on the triangle at the given position, like {@link Triangle#intersect(Ray, Hit)}
+     * used the code from https://www.scratchapixel.com/lessons/3d-basic-rendering/ray-tracing-rendering-a-triangle/moller-trumbore-ray-triangle-intersection.html
+     *
+     * @param i the position of the triangle
+     * @param ray the ray to intersect with
+     * @param tMin the minimum distance from the ray origin to the intersection point
+     * @param tMax the maximum distance from the ray origin to the intersection point
+     * @param hit the hit t and the barycentric coordinates are saved in (null if only the existence of a hit matters)
+     * @return true if the ray hits the triangle between tMin and tMax, false otherwise
+     */
+    boolean intersect(int i, Ray ray, float tMin, float tMax, Hit hit) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float directionX = rayDirection.getX();
+        float directionY = rayDirection.getY();
+        float directionZ = rayDirection.getZ();
+
+        //pvec = direction x edge2
+        float pvecX = directionY * edge2Z[i] - directionZ * edge2Y[i];
+        float pvecY = directionZ * edge2X[i] - directionX * edge2Z[i];
+        float pvecZ = directionX * edge2Y[i] - directionY * edge2X[i];
+        float det = edge1X[i] * pvecX + edge1Y[i] * pvecY + edge1Z[i] * pvecZ;
+
+        if(Math.abs(det) < tMin) {
+            return false;
+        }
+
+        //tvec = origin - a
+        float invDet = 1 / det;
+        float tvecX = rayOrigin.getX() - pointX[i];
+        float tvecY = rayOrigin.getY() - pointY[i];
+        float tvecZ = rayOrigin.getZ() - pointZ[i];
+        float a_point = (tvecX * pvecX + tvecY * pvecY + tvecZ * pvecZ) * invDet;
+
+        if (a_point < 0.0 || a_point > 1.0) {
+            return false;
+        }
+
+        //qvec = tvec x edge1
+        float qvecX = tvecY * edge1Z[i] - tvecZ * edge1Y[i];
+        float qvecY = tvecZ * edge1X[i] - tvecX * edge1Z[i];
+        float qvecZ = tvecX * edge1Y[i] - tvecY * edge1X[i];
+        float b_point = invDet * (directionX * qvecX + directionY * qvecY + directionZ * qvecZ);
+
+        if (b_point < 0.0 || b_point > 1.0 || a_point + b_point > 1.0) {
+            return false;
+        }
+
+        float t = (edge2X[i] * qvecX + edge2Y[i] * qvecY + edge2Z[i] * qvecZ) * invDet;
+        if (t > tMin && t < tMax) {
+            if(hit != null) {
+                hit.setDistance(t, a_point, b_point);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the intersection point and the texture coordinates of a hit on the triangle at the given position
+     * @param i the position of the triangle
+     * @param ray the ray that hit the triangle
+     * @param hit the hit on the triangle (t and barycentric coordinates)
+     * @return the intersection(t, point, normal, u, v) of the ray and the triangle
+     */
+    TriangleIntersection getIntersection(int i, Ray ray, Hit hit) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float t = hit.getT();
+        float a_point = hit.getU();
+        float b_point = hit.getV();
+
+        //calculate the texture coordinates for texture mapping
+        float u_texture = (1 - a_point - b_point) * textureU[i * 3] + a_point * textureU[i * 3 + 1] + b_point * textureU[i * 3 + 2];
+        float v_texture = (1 - a_point - b_point) * textureV[i * 3] + a_point * textureV[i * 3 + 1] + b_point * textureV[i * 3 + 2];
+
+        //P = O + tD
+        MyPoint point = new MyPoint(
+                rayOrigin.getX() + rayDirection.getX() * t,
+                rayOrigin.getY() + rayDirection.getY() * t,
+                rayOrigin.getZ() + rayDirection.getZ() * t
+        );
+
+        return new TriangleIntersection(t, new MyVector(normalX[i], normalY[i], normalZ[i]), point, u_texture, v_texture);
+    }
+
+    /**
+     * @param i the position of the triangle
+     * @return a readable description of the triangle at the given position
+     */
+    String toString(int i) {
+        return "Triangle {" +
+                "\n\ta: (" + pointX[i] + ", " + pointY[i] + ", " + pointZ[i] + ")" +
+                ",\n\tedge1: (" + edge1X[i] + ", " + edge1Y[i] + ", " + edge1Z[i] + ")" +
+                ",\n\tedge2: (" + edge2X[i] + ", " + edge2Y[i] + ", " + edge2Z[i] + ")" +
+                ",\n\tnormal: (" + normalX[i] + ", " + normalY[i] + ", " + normalZ[i] + ")" +
+                "\n\t}";
+    }
+}
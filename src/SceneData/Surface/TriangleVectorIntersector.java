@@ -0,0 +1,123 @@
+package SceneData.Surface;
+
+import SceneData.DataTypes.Hit;
+import SceneData.DataTypes.MyPoint;
+import SceneData.DataTypes.MyVector;
+import SceneData.DataTypes.Ray;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Möller-Trumbore test of several triangles of {@link TriangleArrays} at once with the Vector API (jdk.incubator.vector).<br>
+ * Every lane is one triangle, so with AVX2 8 triangles (a whole leaf) are tested by the same instructions.
+ * The arrays are padded to whole vectors, the lanes after the end of the range are loaded but never accepted.
+ * The operations are done in the same order as in {@link TriangleArrays#intersect(int, Ray, float, float, Hit)}, so both find exactly the same hits.<br><br>
+ * Only loaded if the module is available (the JVM has to be started with --add-modules jdk.incubator.vector).
+ */
+final class TriangleVectorIntersector {
+    /** the leaves have up to 8 triangles, wider vectors (AVX-512) would mostly test empty lanes */
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED.length() > 8 ? FloatVector.SPECIES_256 : FloatVector.SPECIES_PREFERRED;
+
+    private TriangleVectorIntersector() {
+    }
+
+    /**
+     * Checks if the vectors of the CPU are wide enough to be faster than testing one triangle after the other
+     * @return true if a vector has at least 4 lanes, false otherwise
+     */
+    static boolean isSupported() {
+        return SPECIES.length() >= 4;
+    }
+
+    static int getLaneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Same as {@link TriangleArrays#intersect(int, int, Ray, float, Hit)}, testing SPECIES.length() triangles per step
+     */
+    static int intersect(TriangleArrays triangles, int start, int end, Ray ray, float tMin, Hit hit) {
+        int closest = -1;
+
+        for(int i = start; i < end; i += SPECIES.length()) {
+            Lanes lanes = test(triangles, i, SPECIES.indexInRange(i, end), ray, tMin, hit.getT());
+            if(!lanes.accepted().anyTrue()) {
+                continue;
+            }
+
+            //the closest hit of the lanes, on equal distances the first triangle wins like in the scalar test
+            float t = lanes.t().reduceLanes(VectorOperators.MIN, lanes.accepted());
+            int lane = lanes.t().compare(VectorOperators.EQ, t).and(lanes.accepted()).firstTrue();
+            hit.setDistance(t, lanes.a_point().lane(lane), lanes.b_point().lane(lane));
+            closest = i + lane;
+        }
+        return closest;
+    }
+
+    /**
+     * Same as {@link TriangleArrays#occluded(int, int, Ray, float, float)}, testing SPECIES.length() triangles per step
+     */
+    static boolean occluded(TriangleArrays triangles, int start, int end, Ray ray, float tMin, float tMax) {
+        for(int i = start; i < end; i += SPECIES.length()) {
+            if(test(triangles, i, SPECIES.indexInRange(i, end), ray, tMin, tMax).accepted().anyTrue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests the triangles from position i on, one per lane
+     * @param range the lanes that belong to the tested range
+     * @return the lanes whose triangle is hit between tMin and tMax, with the t and the barycentric coordinates of every lane
+     */
+    private static Lanes test(TriangleArrays triangles, int i, VectorMask<Float> range, Ray ray, float tMin, float tMax) {
+        MyVector rayDirection = ray.getDirection();
+        MyPoint rayOrigin = ray.getOrigin();
+        float directionX = rayDirection.getX();
+        float directionY = rayDirection.getY();
+        float directionZ = rayDirection.getZ();
+
+        FloatVector edge1X = FloatVector.fromArray(SPECIES, triangles.edge1X, i);
+        FloatVector edge1Y = FloatVector.fromArray(SPECIES, triangles.edge1Y, i);
+        FloatVector edge1Z = FloatVector.fromArray(SPECIES, triangles.edge1Z, i);
+        FloatVector edge2X = FloatVector.fromArray(SPECIES, triangles.edge2X, i);
+        FloatVector edge2Y = FloatVector.fromArray(SPECIES, triangles.edge2Y, i);
+        FloatVector edge2Z = FloatVector.fromArray(SPECIES, triangles.edge2Z, i);
+
+        //pvec = direction x edge2
+        FloatVector pvecX = edge2Z.mul(directionY).sub(edge2Y.mul(directionZ));
+        FloatVector pvecY = edge2X.mul(directionZ).sub(edge2Z.mul(directionX));
+        FloatVector pvecZ = edge2Y.mul(directionX).sub(edge2X.mul(directionY));
+        FloatVector det = edge1X.mul(pvecX).add(edge1Y.mul(pvecY)).add(edge1Z.mul(pvecZ));
+        VectorMask<Float> rejected = det.abs().compare(VectorOperators.LT, tMin);
+
+        //tvec = origin - a
+        FloatVector invDet = FloatVector.broadcast(SPECIES, 1.0f).div(det);
+        FloatVector tvecX = FloatVector.broadcast(SPECIES, rayOrigin.getX()).sub(FloatVector.fromArray(SPECIES, triangles.pointX, i));
+        FloatVector tvecY = FloatVector.broadcast(SPECIES, rayOrigin.getY()).sub(FloatVector.fromArray(SPECIES, triangles.pointY, i));
+        FloatVector tvecZ = FloatVector.broadcast(SPECIES, rayOrigin.getZ()).sub(FloatVector.fromArray(SPECIES, triangles.pointZ, i));
+        FloatVector a_point = tvecX.mul(pvecX).add(tvecY.mul(pvecY)).add(tvecZ.mul(pvecZ)).mul(invDet);
+        rejected = rejected.or(a_point.compare(VectorOperators.LT, 0.0f)).or(a_point.compare(VectorOperators.GT, 1.0f));
+
+        //qvec = tvec x edge1
+        FloatVector qvecX = tvecY.mul(edge1Z).sub(tvecZ.mul(edge1Y));
+        FloatVector qvecY = tvecZ.mul(edge1X).sub(tvecX.mul(edge1Z));
+        FloatVector qvecZ = tvecX.mul(edge1Y).sub(tvecY.mul(edge1X));
+        FloatVector b_point = invDet.mul(qvecX.mul(directionX).add(qvecY.mul(directionY)).add(qvecZ.mul(directionZ)));
+        rejected = rejected.or(b_point.compare(VectorOperators.LT, 0.0f)).or(b_point.compare(VectorOperators.GT, 1.0f))
+                .or(a_point.add(b_point).compare(VectorOperators.GT, 1.0f));
+
+        FloatVector t = edge2X.mul(qvecX).add(edge2Y.mul(qvecY)).add(edge2Z.mul(qvecZ)).mul(invDet);
+        VectorMask<Float> accepted = range.andNot(rejected)
+                .and(t.compare(VectorOperators.GT, tMin))
+                .and(t.compare(VectorOperators.LT, tMax));
+
+        return new Lanes(accepted, t, a_point, b_point);
+    }
+
+    private record Lanes(VectorMask<Float> accepted, FloatVector t, FloatVector a_point, FloatVector b_point) {
+    }
+}